@@ -0,0 +1,50 @@
+package frc.drivecore;
+
+/**
+ * Times the per-loop drive math. Run with {@code gradlew :drive-core:benchmark}.
+ */
+public final class DriveCoreBenchmark {
+	private static final int kWarmupIterations = 200_000;
+	private static final int kIterations = 2_000_000;
+	private static final double kModuleDist = 0.3683;
+
+	private DriveCoreBenchmark() {
+	}
+
+	public static void main(String... args) {
+		double[] moduleX = { kModuleDist, kModuleDist, -kModuleDist, -kModuleDist };
+		double[] moduleY = { kModuleDist, -kModuleDist, kModuleDist, -kModuleDist };
+		var kinematics = new SwerveKinematics(moduleX, moduleY);
+		var slipDetector = new WheelSlipDetector(moduleX, moduleY, 0.5, 19.6, 9.8);
+		double[] speeds = new double[4];
+		double[] angles = new double[4];
+		double[] currentAngles = new double[4];
+		double[] chassis = new double[3];
+
+		// Keeps the JIT from optimizing the work away
+		double sink = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			int iterations = pass == 0 ? kWarmupIterations : kIterations;
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				double t = i * 1e-4;
+				double vx = InputShaping.shape(Math.sin(t), 0.05, 4);
+				double vy = InputShaping.shape(Math.cos(t), 0.05, 4);
+				double omega = InputShaping.shape(Math.sin(3 * t), 0.05, 6);
+				SwerveKinematics.fromFieldRelative(vx, vy, t, chassis);
+				SwerveKinematics.discretize(chassis[0], chassis[1], omega, 0.02, chassis);
+				kinematics.toModuleStates(chassis[0], chassis[1], chassis[2], speeds, angles);
+				SwerveKinematics.desaturate(speeds, 4.5);
+				SwerveKinematics.optimize(speeds, angles, currentAngles);
+				slipDetector.update(speeds, angles, omega, 0, 0, 0.02);
+				System.arraycopy(angles, 0, currentAngles, 0, angles.length);
+				sink += speeds[0] + (slipDetector.isSlipping(0) ? 1 : 0);
+			}
+			long elapsed = System.nanoTime() - start;
+			if (pass == 1)
+				System.out.printf("Drive loop math: %.1f ns/loop%n", (double) elapsed / iterations);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+}
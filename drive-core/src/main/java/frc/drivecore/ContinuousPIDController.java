@@ -0,0 +1,91 @@
+package frc.drivecore;
+
+/**
+ * A PID controller for inputs that wrap around, such as angles, so it always
+ * turns the short way to the setpoint. Behaves like WPILib's
+ * {@code PIDController} with {@code enableContinuousInput(minimumInput,
+ * maximumInput)} and the default integrator range of -1 to 1.
+ */
+public class ContinuousPIDController {
+	private final double m_minimumInput;
+	private final double m_maximumInput;
+	private final double m_periodSeconds;
+	private double m_kp;
+	private double m_ki;
+	private double m_kd;
+	private double m_error = 0;
+	private double m_totalError = 0;
+
+	/**
+	 * Creates a new ContinuousPIDController.
+	 *
+	 * @param kp The proportional gain
+	 * @param ki The integral gain
+	 * @param kd The derivative gain
+	 * @param minimumInput The input that wraps around to {@code maximumInput}
+	 * @param maximumInput The input that wraps around to {@code minimumInput}
+	 * @param periodSeconds How often {@link #calculate} is called in seconds
+	 */
+	public ContinuousPIDController(double kp, double ki, double kd, double minimumInput, double maximumInput,
+			double periodSeconds) {
+		m_kp = kp;
+		m_ki = ki;
+		m_kd = kd;
+		m_minimumInput = minimumInput;
+		m_maximumInput = maximumInput;
+		m_periodSeconds = periodSeconds;
+	}
+
+	/**
+	 * Sets the gains.
+	 *
+	 * @param kp The proportional gain
+	 * @param ki The integral gain
+	 * @param kd The derivative gain
+	 */
+	public void setPID(double kp, double ki, double kd) {
+		m_kp = kp;
+		m_ki = ki;
+		m_kd = kd;
+	}
+
+	/**
+	 * Calculates the output for the next period.
+	 *
+	 * @param measurement The measured input
+	 * @param setpoint The input to drive the measurement to
+	 * @return The output
+	 */
+	public double calculate(double measurement, double setpoint) {
+		double previousError = m_error;
+		double errorBound = (m_maximumInput - m_minimumInput) / 2;
+		m_error = wrap(setpoint - measurement, -errorBound, errorBound);
+		double errorDerivative = (m_error - previousError) / m_periodSeconds;
+		if (m_ki != 0)
+			m_totalError = InputShaping.clamp(m_totalError + m_error * m_periodSeconds, 1 / Math.abs(m_ki));
+		return m_kp * m_error + m_ki * m_totalError + m_kd * errorDerivative;
+	}
+
+	/**
+	 * Returns the error at the last {@link #calculate}, wrapped to the shorter
+	 * way around.
+	 *
+	 * @return The error
+	 */
+	public double getError() {
+		return m_error;
+	}
+
+	/**
+	 * Wraps a value into a range, like WPILib's {@code MathUtil.inputModulus}.
+	 *
+	 * @param value The value
+	 * @param minimum The lower end of the range
+	 * @param maximum The upper end of the range
+	 * @return The wrapped value
+	 */
+	static double wrap(double value, double minimum, double maximum) {
+		double range = maximum - minimum;
+		return value - Math.floor((value - minimum) / range) * range;
+	}
+}
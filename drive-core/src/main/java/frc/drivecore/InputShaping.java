@@ -0,0 +1,51 @@
+package frc.drivecore;
+
+/**
+ * Turns raw joystick axes into drive commands.
+ */
+public final class InputShaping {
+	private InputShaping() {
+	}
+
+	/**
+	 * Zeroes inputs inside the deadband and rescales the rest so the output still
+	 * goes smoothly from 0 to 1. Behaves like WPILib's
+	 * {@code MathUtil.applyDeadband(value, deadband)}.
+	 *
+	 * @param value The input, from -1 to 1
+	 * @param deadband The deadband, from 0 to 1
+	 * @return The input with the deadband applied
+	 */
+	public static double applyDeadband(double value, double deadband) {
+		if (Math.abs(value) <= deadband)
+			return 0;
+		if (value > 0)
+			return (value - deadband) / (1 - deadband);
+		return (value + deadband) / (1 - deadband);
+	}
+
+	/**
+	 * Applies a deadband, squares the input (keeping its sign) for finer control
+	 * at low speeds, and scales it to a maximum.
+	 *
+	 * @param value The input, from -1 to 1
+	 * @param deadband The deadband, from 0 to 1
+	 * @param max The output when the input is 1
+	 * @return The shaped input
+	 */
+	public static double shape(double value, double deadband, double max) {
+		value = applyDeadband(value, deadband);
+		return Math.signum(value) * value * value * max;
+	}
+
+	/**
+	 * Clamps a value to a symmetric range.
+	 *
+	 * @param value The value
+	 * @param max The largest magnitude allowed
+	 * @return The clamped value
+	 */
+	public static double clamp(double value, double max) {
+		return Math.max(-max, Math.min(max, value));
+	}
+}
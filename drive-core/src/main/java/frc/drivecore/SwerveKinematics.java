@@ -0,0 +1,177 @@
+package frc.drivecore;
+
+/**
+ * Swerve drive kinematics on plain arrays. Speeds are in meters per second and
+ * angles in radians, CCW positive; module arrays are indexed the same way as the
+ * module locations passed to the constructor. Nothing here allocates, so it can
+ * be called every loop.
+ */
+public class SwerveKinematics {
+	private final double[] m_moduleX;
+	private final double[] m_moduleY;
+	// Inverse of A^T A, where A maps chassis speeds to module velocity components
+	private final double[][] m_forwardInverse = new double[3][3];
+
+	/**
+	 * Creates a new SwerveKinematics.
+	 *
+	 * @param moduleX The forward distances of the modules from the center of the
+	 *        robot in meters
+	 * @param moduleY The leftward distances of the modules from the center of the
+	 *        robot in meters
+	 */
+	public SwerveKinematics(double[] moduleX, double[] moduleY) {
+		m_moduleX = moduleX.clone();
+		m_moduleY = moduleY.clone();
+		double sumX = 0;
+		double sumY = 0;
+		double sumR2 = 0;
+		for (int i = 0; i < moduleX.length; i++) {
+			sumX += moduleX[i];
+			sumY += moduleY[i];
+			sumR2 += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+		}
+		int n = moduleX.length;
+		double[][] m = { { n, 0, -sumY }, { 0, n, sumX }, { -sumY, sumX, sumR2 } };
+		double det = m[0][0] * (m[1][1] * m[2][2] - m[1][2] * m[2][1])
+				- m[0][1] * (m[1][0] * m[2][2] - m[1][2] * m[2][0])
+				+ m[0][2] * (m[1][0] * m[2][1] - m[1][1] * m[2][0]);
+		for (int r = 0; r < 3; r++) {
+			for (int c = 0; c < 3; c++) {
+				// Cofactor of m[c][r], which is the (r, c) element of the adjugate
+				int r0 = (c + 1) % 3, r1 = (c + 2) % 3, c0 = (r + 1) % 3, c1 = (r + 2) % 3;
+				m_forwardInverse[r][c] = (m[r0][c0] * m[r1][c1] - m[r0][c1] * m[r1][c0]) / det;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of modules.
+	 *
+	 * @return The number of modules
+	 */
+	public int getModuleCount() {
+		return m_moduleX.length;
+	}
+
+	/**
+	 * Converts field-relative chassis speeds to robot-relative ones.
+	 *
+	 * @param vx The field-relative forward velocity
+	 * @param vy The field-relative leftward velocity
+	 * @param headingRadians The robot heading
+	 * @param out Receives the robot-relative vx and vy
+	 */
+	public static void fromFieldRelative(double vx, double vy, double headingRadians, double[] out) {
+		double cos = Math.cos(headingRadians);
+		double sin = Math.sin(headingRadians);
+		out[0] = vx * cos + vy * sin;
+		out[1] = -vx * sin + vy * cos;
+	}
+
+	/**
+	 * Adjusts chassis speeds that will be held for a period of time so that the
+	 * robot ends up where driving at them along a straight line would have put
+	 * it, instead of skewing while it rotates. Behaves like WPILib's
+	 * {@code ChassisSpeeds.discretize}.
+	 *
+	 * @param vx The forward velocity
+	 * @param vy The leftward velocity
+	 * @param omega The angular velocity in radians per second
+	 * @param dt How long the speeds will be held in seconds
+	 * @param out Receives the discretized vx, vy and omega
+	 */
+	public static void discretize(double vx, double vy, double omega, double dt, double[] out) {
+		// The twist that moves the robot from the origin to (vx dt, vy dt, omega dt)
+		double dtheta = omega * dt;
+		double halfDtheta = dtheta / 2;
+		double cosMinusOne = Math.cos(dtheta) - 1;
+		double halfThetaByTanOfHalfDtheta;
+		if (Math.abs(cosMinusOne) < 1e-9) {
+			halfThetaByTanOfHalfDtheta = 1 - dtheta * dtheta / 12;
+		} else {
+			halfThetaByTanOfHalfDtheta = -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+		}
+		out[0] = (vx * halfThetaByTanOfHalfDtheta + vy * halfDtheta);
+		out[1] = (vy * halfThetaByTanOfHalfDtheta - vx * halfDtheta);
+		out[2] = omega;
+	}
+
+	/**
+	 * Calculates the speed and angle of each module. If the robot isn't moving,
+	 * the angles are left alone so the modules don't snap back to 0.
+	 *
+	 * @param vx The forward velocity
+	 * @param vy The leftward velocity
+	 * @param omega The angular velocity in radians per second
+	 * @param speeds Receives the module speeds
+	 * @param angles Receives the module angles
+	 */
+	public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] angles) {
+		boolean stopped = vx == 0 && vy == 0 && omega == 0;
+		for (int i = 0; i < m_moduleX.length; i++) {
+			double moduleVx = vx - omega * m_moduleY[i];
+			double moduleVy = vy + omega * m_moduleX[i];
+			speeds[i] = Math.hypot(moduleVx, moduleVy);
+			if (!stopped)
+				angles[i] = Math.atan2(moduleVy, moduleVx);
+		}
+	}
+
+	/**
+	 * Calculates the chassis speeds that best fit the module speeds and angles.
+	 *
+	 * @param speeds The module speeds
+	 * @param angles The module angles
+	 * @param out Receives vx, vy and omega
+	 */
+	public void toChassisSpeeds(double[] speeds, double[] angles, double[] out) {
+		double sumVx = 0;
+		double sumVy = 0;
+		double sumMoment = 0;
+		for (int i = 0; i < m_moduleX.length; i++) {
+			double moduleVx = speeds[i] * Math.cos(angles[i]);
+			double moduleVy = speeds[i] * Math.sin(angles[i]);
+			sumVx += moduleVx;
+			sumVy += moduleVy;
+			sumMoment += m_moduleX[i] * moduleVy - m_moduleY[i] * moduleVx;
+		}
+		for (int r = 0; r < 3; r++)
+			out[r] = m_forwardInverse[r][0] * sumVx + m_forwardInverse[r][1] * sumVy
+					+ m_forwardInverse[r][2] * sumMoment;
+	}
+
+	/**
+	 * Scales all module speeds down by the same amount if any of them is faster
+	 * than the maximum.
+	 *
+	 * @param speeds The module speeds
+	 * @param maxSpeed The maximum module speed
+	 */
+	public static void desaturate(double[] speeds, double maxSpeed) {
+		double fastest = 0;
+		for (double speed : speeds)
+			fastest = Math.max(fastest, Math.abs(speed));
+		if (fastest <= maxSpeed)
+			return;
+		for (int i = 0; i < speeds.length; i++)
+			speeds[i] *= maxSpeed / fastest;
+	}
+
+	/**
+	 * Flips any module that would have to turn more than 90 degrees to point in
+	 * the opposite direction and drive backwards instead.
+	 *
+	 * @param speeds The module speeds
+	 * @param angles The target module angles
+	 * @param currentAngles The current module angles
+	 */
+	public static void optimize(double[] speeds, double[] angles, double[] currentAngles) {
+		for (int i = 0; i < speeds.length; i++) {
+			if (Math.abs(Math.IEEEremainder(angles[i] - currentAngles[i], 2 * Math.PI)) > Math.PI / 2) {
+				speeds[i] = -speeds[i];
+				angles[i] = Math.IEEEremainder(angles[i] + Math.PI, 2 * Math.PI);
+			}
+		}
+	}
+}
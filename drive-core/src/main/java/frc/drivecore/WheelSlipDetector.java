@@ -0,0 +1,250 @@
+package frc.drivecore;
+
+/**
+ * Flags swerve modules whose wheels are slipping and detects collisions, so
+ * odometry can stop trusting the affected modules.
+ *
+ * After removing the rotation measured by the gyro, every module should report
+ * the same robot velocity. A module is slipping if its velocity disagrees with
+ * the largest group of modules that agree with each other, or if its
+ * acceleration disagrees with the accelerometer. Going by the largest group
+ * keeps slipping wheels from dragging the others along with them; when two
+ * groups are the same size, the one closer to the last trusted robot velocity
+ * wins. If a clear majority of modules agree, their average is the robot
+ * velocity; otherwise the last trusted robot velocity is carried forward with
+ * the gyro and accelerometer. A collision is when the accelerometer sees an
+ * acceleration the trusted robot velocity doesn't. Everything is done in
+ * preallocated arrays so {@link #update} doesn't allocate.
+ */
+public class WheelSlipDetector {
+	private final double m_slipSpeedThreshold;
+	private final double m_slipAccelThreshold;
+	private final double m_collisionAccelThreshold;
+	private final double[] m_moduleX;
+	private final double[] m_moduleY;
+	private final double[] m_cos;
+	private final double[] m_sin;
+	private final double[] m_vx;
+	private final double[] m_vy;
+	private final double[] m_previousVx;
+	private final double[] m_previousVy;
+	private final double[] m_predictedSpeeds;
+	private final boolean[] m_slipping;
+	private double m_robotVx = 0;
+	private double m_robotVy = 0;
+	private boolean m_hasConsensus = true;
+	private boolean m_colliding = false;
+	// Accelerations can't be measured until there is a previous update to
+	// measure them from
+	private boolean m_hasPreviousUpdate = false;
+
+	/**
+	 * Creates a new WheelSlipDetector.
+	 *
+	 * @param moduleX The forward distances of the modules from the center of the
+	 *        robot in meters
+	 * @param moduleY The leftward distances of the modules from the center of the
+	 *        robot in meters
+	 * @param slipSpeedThreshold How far a module's velocity can be from the
+	 *        others' before it is slipping, in meters per second
+	 * @param slipAccelThreshold How far a module's acceleration can be from the
+	 *        accelerometer's before it is slipping, in meters per second squared
+	 * @param collisionAccelThreshold How far the wheels' acceleration can be from
+	 *        the accelerometer's before it is a collision, in meters per second
+	 *        squared
+	 */
+	public WheelSlipDetector(double[] moduleX, double[] moduleY, double slipSpeedThreshold,
+			double slipAccelThreshold, double collisionAccelThreshold) {
+		int n = moduleX.length;
+		m_slipSpeedThreshold = slipSpeedThreshold;
+		m_slipAccelThreshold = slipAccelThreshold;
+		m_collisionAccelThreshold = collisionAccelThreshold;
+		m_moduleX = moduleX.clone();
+		m_moduleY = moduleY.clone();
+		m_cos = new double[n];
+		m_sin = new double[n];
+		m_vx = new double[n];
+		m_vy = new double[n];
+		m_previousVx = new double[n];
+		m_previousVy = new double[n];
+		m_predictedSpeeds = new double[n];
+		m_slipping = new boolean[n];
+	}
+
+	/**
+	 * Checks the latest measurements for slipping modules and collisions. The
+	 * accelerometer checks are skipped on the first update, since there is
+	 * nothing to measure the wheels' acceleration from yet.
+	 *
+	 * @param speeds The measured wheel speeds in meters per second
+	 * @param anglesRadians The measured module angles in radians
+	 * @param omegaRadiansPerSecond The yaw rate from the gyro in radians per second
+	 * @param accelX The forward acceleration from the accelerometer in meters per
+	 *        second squared, or NaN to skip the accelerometer checks
+	 * @param accelY The leftward acceleration from the accelerometer in meters per
+	 *        second squared, or NaN to skip the accelerometer checks
+	 * @param dtSeconds The time since the last update in seconds
+	 */
+	public void update(double[] speeds, double[] anglesRadians, double omegaRadiansPerSecond, double accelX,
+			double accelY, double dtSeconds) {
+		int n = m_moduleX.length;
+		for (int i = 0; i < n; i++) {
+			m_cos[i] = Math.cos(anglesRadians[i]);
+			m_sin[i] = Math.sin(anglesRadians[i]);
+			// The robot velocity this module sees once the rotation is taken out
+			m_vx[i] = speeds[i] * m_cos[i] + omegaRadiansPerSecond * m_moduleY[i];
+			m_vy[i] = speeds[i] * m_sin[i] - omegaRadiansPerSecond * m_moduleX[i];
+		}
+		int reference = largestGroup();
+		boolean checkAccel = m_hasPreviousUpdate && !Double.isNaN(accelX) && !Double.isNaN(accelY);
+		double sumVx = 0;
+		double sumVy = 0;
+		int agreeing = 0;
+		for (int i = 0; i < n; i++) {
+			boolean speedMismatch = !agrees(i, reference);
+			boolean accelMismatch = false;
+			if (checkAccel) {
+				double moduleAccelX = accel(m_vx[i], m_previousVx[i], -m_vy[i], omegaRadiansPerSecond, dtSeconds);
+				double moduleAccelY = accel(m_vy[i], m_previousVy[i], m_vx[i], omegaRadiansPerSecond, dtSeconds);
+				accelMismatch = Math.hypot(moduleAccelX - accelX, moduleAccelY - accelY) > m_slipAccelThreshold;
+			}
+			m_slipping[i] = speedMismatch || accelMismatch;
+			if (!m_slipping[i]) {
+				sumVx += m_vx[i];
+				sumVy += m_vy[i];
+				agreeing++;
+			}
+			m_previousVx[i] = m_vx[i];
+			m_previousVy[i] = m_vy[i];
+		}
+		double previousRobotVx = m_robotVx;
+		double previousRobotVy = m_robotVy;
+		// A clear majority is all but one module
+		m_hasConsensus = agreeing >= n - 1;
+		if (m_hasConsensus || (!checkAccel && agreeing > 0)) {
+			m_robotVx = sumVx / agreeing;
+			m_robotVy = sumVy / agreeing;
+		} else if (checkAccel) {
+			// Carry the last trusted velocity forward with the accelerometer
+			m_robotVx = previousRobotVx + (accelX + omegaRadiansPerSecond * previousRobotVy) * dtSeconds;
+			m_robotVy = previousRobotVy + (accelY - omegaRadiansPerSecond * previousRobotVx) * dtSeconds;
+		} else {
+			// Only possible if the accelerometer is off and every module is
+			// slipping, so go with the largest group
+			m_robotVx = m_vx[reference];
+			m_robotVy = m_vy[reference];
+		}
+		for (int i = 0; i < n; i++) {
+			// What the module's wheel speed should have been according to the robot velocity
+			m_predictedSpeeds[i] = (m_robotVx - omegaRadiansPerSecond * m_moduleY[i]) * m_cos[i]
+					+ (m_robotVy + omegaRadiansPerSecond * m_moduleX[i]) * m_sin[i];
+		}
+		if (checkAccel) {
+			// When the velocity was carried forward with the accelerometer, this
+			// agrees with it by construction, since the wheels can't be trusted
+			double robotAccelX = accel(m_robotVx, previousRobotVx, -m_robotVy, omegaRadiansPerSecond, dtSeconds);
+			double robotAccelY = accel(m_robotVy, previousRobotVy, m_robotVx, omegaRadiansPerSecond, dtSeconds);
+			m_colliding = Math.hypot(robotAccelX - accelX, robotAccelY - accelY) > m_collisionAccelThreshold;
+		} else {
+			m_colliding = false;
+		}
+		m_hasPreviousUpdate = true;
+	}
+
+	/**
+	 * Returns whether two modules see the same robot velocity.
+	 *
+	 * @param a The index of one module
+	 * @param b The index of the other module
+	 * @return Whether they agree
+	 */
+	private boolean agrees(int a, int b) {
+		return Math.hypot(m_vx[a] - m_vx[b], m_vy[a] - m_vy[b]) <= m_slipSpeedThreshold;
+	}
+
+	/**
+	 * Finds the module that the most modules agree with. Ties go to the module
+	 * closest to the last trusted robot velocity.
+	 *
+	 * @return The index of the module
+	 */
+	private int largestGroup() {
+		int best = 0;
+		int bestCount = 0;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < m_vx.length; i++) {
+			int count = 0;
+			for (int j = 0; j < m_vx.length; j++) {
+				if (agrees(i, j))
+					count++;
+			}
+			double distance = Math.hypot(m_vx[i] - m_robotVx, m_vy[i] - m_robotVy);
+			if (count > bestCount || (count == bestCount && distance < bestDistance)) {
+				best = i;
+				bestCount = count;
+				bestDistance = distance;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Calculates one component of the acceleration an accelerometer on a rotating
+	 * robot would measure.
+	 *
+	 * @param v The velocity component in meters per second
+	 * @param previousV The velocity component at the last update in meters per
+	 *        second
+	 * @param crossV The velocity component the rotation couples in ({@code -vy}
+	 *        for X, {@code vx} for Y) in meters per second
+	 * @param omega The yaw rate in radians per second
+	 * @param dt The time since the last update in seconds
+	 * @return The acceleration in meters per second squared
+	 */
+	private static double accel(double v, double previousV, double crossV, double omega, double dt) {
+		return (v - previousV) / dt + omega * crossV;
+	}
+
+	/**
+	 * Returns whether a module was slipping at the last update.
+	 *
+	 * @param module The index of the module
+	 * @return Whether the module is slipping
+	 */
+	public boolean isSlipping(int module) {
+		return m_slipping[module];
+	}
+
+	/**
+	 * Returns whether all but at most one module agreed on the robot velocity at
+	 * the last update. If not, the predicted speeds come from the gyro and
+	 * accelerometer instead of the wheels, as long as the accelerometer is
+	 * available.
+	 *
+	 * @return Whether the modules agreed
+	 */
+	public boolean hasConsensus() {
+		return m_hasConsensus;
+	}
+
+	/**
+	 * Returns what a module's wheel speed should have been at the last update
+	 * according to the modules that agreed, or to the gyro and accelerometer if
+	 * too few did.
+	 *
+	 * @param module The index of the module
+	 * @return The speed in meters per second
+	 */
+	public double getPredictedSpeed(int module) {
+		return m_predictedSpeeds[module];
+	}
+
+	/**
+	 * Returns whether the robot was hit (or hit something) at the last update.
+	 *
+	 * @return Whether there was a collision
+	 */
+	public boolean isColliding() {
+		return m_colliding;
+	}
+}
@@ -0,0 +1,53 @@
+package frc.drivecore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ContinuousPIDControllerTest {
+	private static final double kEpsilon = 1e-9;
+	private static final double kDt = 0.02;
+
+	@Test
+	void turnsTheShortWayAcrossTheWrap() {
+		var controller = new ContinuousPIDController(1, 0, 0, 0, 360, kDt);
+		// 350 to 10 degrees is 20 degrees forward, not 340 back
+		assertEquals(20, controller.calculate(350, 10), kEpsilon);
+		assertEquals(-20, controller.calculate(10, 350), kEpsilon);
+	}
+
+	@Test
+	void wrapsHeadingsInRadians() {
+		var controller = new ContinuousPIDController(2, 0, 0, -Math.PI, Math.PI, kDt);
+		controller.calculate(Math.PI - 0.1, -Math.PI + 0.1);
+		assertEquals(0.2, controller.getError(), kEpsilon);
+		controller.calculate(0, 3 * Math.PI / 2);
+		assertEquals(-Math.PI / 2, controller.getError(), kEpsilon);
+	}
+
+	@Test
+	void derivativeUsesTheChangeInError() {
+		var controller = new ContinuousPIDController(0, 0, 0.5, 0, 360, kDt);
+		// Like WPILib, the error starts at 0, so the first call kicks
+		assertEquals(0.5 * 10 / kDt, controller.calculate(0, 10), kEpsilon);
+		assertEquals(0.5 * -4 / kDt, controller.calculate(4, 10), kEpsilon);
+		assertEquals(0, controller.calculate(4, 10), kEpsilon);
+	}
+
+	@Test
+	void integralIsLimitedToTheIntegratorRange() {
+		var controller = new ContinuousPIDController(0, 2, 0, 0, 360, kDt);
+		assertEquals(2 * 10 * kDt, controller.calculate(0, 10), kEpsilon);
+		for (int i = 0; i < 100; i++)
+			controller.calculate(0, 10);
+		assertEquals(1, controller.calculate(0, 10), kEpsilon);
+	}
+
+	@Test
+	void setPIDChangesTheGains() {
+		var controller = new ContinuousPIDController(1, 0, 0, 0, 360, kDt);
+		controller.calculate(0, 10);
+		controller.setPID(3, 0, 0);
+		assertEquals(30, controller.calculate(0, 10), kEpsilon);
+	}
+}
@@ -0,0 +1,39 @@
+package frc.drivecore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class InputShapingTest {
+	private static final double kEpsilon = 1e-9;
+
+	@Test
+	void deadbandZeroesInputsAtTheEdge() {
+		assertEquals(0, InputShaping.applyDeadband(0.05, 0.05), kEpsilon);
+		assertEquals(0, InputShaping.applyDeadband(-0.05, 0.05), kEpsilon);
+		assertEquals(0, InputShaping.applyDeadband(0.01, 0.05), kEpsilon);
+	}
+
+	@Test
+	void deadbandRescalesTheRest() {
+		assertEquals(1, InputShaping.applyDeadband(1, 0.05), kEpsilon);
+		assertEquals(-1, InputShaping.applyDeadband(-1, 0.05), kEpsilon);
+		assertEquals(0.5, InputShaping.applyDeadband(0.525, 0.05), kEpsilon);
+		assertEquals(-0.5, InputShaping.applyDeadband(-0.525, 0.05), kEpsilon);
+	}
+
+	@Test
+	void shapeSquaresAndKeepsSign() {
+		assertEquals(1, InputShaping.shape(0.525, 0.05, 4), kEpsilon);
+		assertEquals(-1, InputShaping.shape(-0.525, 0.05, 4), kEpsilon);
+		assertEquals(4, InputShaping.shape(1, 0.05, 4), kEpsilon);
+		assertEquals(0, InputShaping.shape(0.04, 0.05, 4), kEpsilon);
+	}
+
+	@Test
+	void clampIsSymmetric() {
+		assertEquals(2, InputShaping.clamp(3, 2), kEpsilon);
+		assertEquals(-2, InputShaping.clamp(-3, 2), kEpsilon);
+		assertEquals(1.5, InputShaping.clamp(1.5, 2), kEpsilon);
+	}
+}
@@ -0,0 +1,92 @@
+package frc.drivecore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SwerveKinematicsTest {
+	private static final double kEpsilon = 1e-9;
+	private static final double kModuleDist = 0.3683;
+	private static final double[] kModuleX = { kModuleDist, kModuleDist, -kModuleDist, -kModuleDist };
+	private static final double[] kModuleY = { kModuleDist, -kModuleDist, kModuleDist, -kModuleDist };
+
+	@Test
+	void moduleStatesRoundTrip() {
+		var kinematics = new SwerveKinematics(kModuleX, kModuleY);
+		double[] speeds = new double[4];
+		double[] angles = new double[4];
+		double[] chassis = new double[3];
+		kinematics.toModuleStates(1.5, -0.7, 2.3, speeds, angles);
+		kinematics.toChassisSpeeds(speeds, angles, chassis);
+		assertArrayEquals(new double[] { 1.5, -0.7, 2.3 }, chassis, kEpsilon);
+	}
+
+	@Test
+	void pureRotationPointsModulesTangentially() {
+		var kinematics = new SwerveKinematics(kModuleX, kModuleY);
+		double[] speeds = new double[4];
+		double[] angles = new double[4];
+		kinematics.toModuleStates(0, 0, 1, speeds, angles);
+		// The front left module is at (d, d), so it moves toward (-1, 1)
+		assertEquals(Math.hypot(kModuleDist, kModuleDist), speeds[0], kEpsilon);
+		assertEquals(3 * Math.PI / 4, angles[0], kEpsilon);
+	}
+
+	@Test
+	void stoppedRobotKeepsModuleAngles() {
+		var kinematics = new SwerveKinematics(kModuleX, kModuleY);
+		double[] speeds = new double[4];
+		double[] angles = { 0.1, 0.2, 0.3, 0.4 };
+		kinematics.toModuleStates(0, 0, 0, speeds, angles);
+		assertArrayEquals(new double[] { 0, 0, 0, 0 }, speeds, kEpsilon);
+		assertArrayEquals(new double[] { 0.1, 0.2, 0.3, 0.4 }, angles, kEpsilon);
+	}
+
+	@Test
+	void discretizeMatchesTwist() {
+		// Driving forward at 1 m/s while turning 1 rad/s for 1 s should end up at
+		// (1, 0) facing 1 rad, which takes the twist (0.5 / tan(0.5), -0.5, 1)
+		double[] out = new double[3];
+		SwerveKinematics.discretize(1, 0, 1, 1, out);
+		assertArrayEquals(new double[] { 0.5 / Math.tan(0.5), -0.5, 1 }, out, kEpsilon);
+	}
+
+	@Test
+	void discretizeWithoutRotationChangesNothing() {
+		double[] out = new double[3];
+		SwerveKinematics.discretize(1.2, -3.4, 0, 0.02, out);
+		assertArrayEquals(new double[] { 1.2, -3.4, 0 }, out, kEpsilon);
+	}
+
+	@Test
+	void fieldRelativeRotatesByHeading() {
+		double[] out = new double[2];
+		SwerveKinematics.fromFieldRelative(1, 0, Math.PI / 2, out);
+		assertArrayEquals(new double[] { 0, -1 }, out, kEpsilon);
+	}
+
+	@Test
+	void optimizeKeepsModulesAtExactlyNinetyDegrees() {
+		double[] speeds = { 1, 1 };
+		double[] angles = { Math.PI / 2, -Math.PI / 2 };
+		SwerveKinematics.optimize(speeds, angles, new double[] { 0, 0 });
+		assertArrayEquals(new double[] { 1, 1 }, speeds, kEpsilon);
+		assertArrayEquals(new double[] { Math.PI / 2, -Math.PI / 2 }, angles, kEpsilon);
+	}
+
+	@Test
+	void optimizeFlipsModulesPastNinetyDegrees() {
+		double[] speeds = { 1, 1 };
+		double[] angles = { Math.PI / 2 + 1e-6, -Math.PI / 2 - 1e-6 };
+		SwerveKinematics.optimize(speeds, angles, new double[] { 0, 0 });
+		assertArrayEquals(new double[] { -1, -1 }, speeds, kEpsilon);
+		assertArrayEquals(new double[] { -Math.PI / 2 + 1e-6, Math.PI / 2 - 1e-6 }, angles, kEpsilon);
+	}
+
+	@Test
+	void desaturateScalesAllModulesTogether() {
+		double[] speeds = { 6, -3, 1.5, 0 };
+		SwerveKinematics.desaturate(speeds, 4);
+		assertArrayEquals(new double[] { 4, -2, 1, 0 }, speeds, kEpsilon);
+	}
+}
@@ -0,0 +1,89 @@
+package frc.drivecore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class WheelSlipDetectorTest {
+	private static final double kEpsilon = 1e-9;
+	private static final double kDt = 0.02;
+	private static final double kModuleDist = 0.3683;
+	private static final double[] kModuleX = { kModuleDist, kModuleDist, -kModuleDist, -kModuleDist };
+	private static final double[] kModuleY = { kModuleDist, -kModuleDist, kModuleDist, -kModuleDist };
+	private static final double[] kForward = new double[4];
+
+	private static WheelSlipDetector cruising() {
+		var detector = new WheelSlipDetector(kModuleX, kModuleY, 0.5, 19.6, 9.8);
+		detector.update(new double[] { 1, 1, 1, 1 }, kForward, 0, 0, 0, kDt);
+		return detector;
+	}
+
+	@Test
+	void agreeingModulesArentSlipping() {
+		var detector = cruising();
+		detector.update(new double[] { 1, 1, 1, 1 }, kForward, 0, 0, 0, kDt);
+		for (int i = 0; i < 4; i++)
+			assertFalse(detector.isSlipping(i));
+		assertTrue(detector.hasConsensus());
+		assertFalse(detector.isColliding());
+	}
+
+	@Test
+	void singleSlippingModuleIsReplaced() {
+		var detector = cruising();
+		detector.update(new double[] { 1, 1, 1, 3 }, kForward, 0, Double.NaN, Double.NaN, kDt);
+		assertFalse(detector.isSlipping(0));
+		assertFalse(detector.isSlipping(1));
+		assertFalse(detector.isSlipping(2));
+		assertTrue(detector.isSlipping(3));
+		assertTrue(detector.hasConsensus());
+		for (int i = 0; i < 4; i++)
+			assertEquals(1, detector.getPredictedSpeed(i), kEpsilon);
+	}
+
+	@Test
+	void twoSlippingModulesFallBackToTheAccelerometer() {
+		var detector = cruising();
+		detector.update(new double[] { 1, 1, 3, 3.5 }, kForward, 0, 0, 0, kDt);
+		// Two against two, so the pair that matches the last trusted velocity wins
+		assertFalse(detector.isSlipping(0));
+		assertFalse(detector.isSlipping(1));
+		assertTrue(detector.isSlipping(2));
+		assertTrue(detector.isSlipping(3));
+		assertFalse(detector.hasConsensus());
+		assertFalse(detector.isColliding());
+		// The accelerometer says the robot kept going at 1 m/s
+		for (int i = 0; i < 4; i++)
+			assertEquals(1, detector.getPredictedSpeed(i), kEpsilon);
+	}
+
+	@Test
+	void firstUpdateWhileMovingIsntASlipOrCollision() {
+		// As after the code restarts mid-match
+		var detector = new WheelSlipDetector(kModuleX, kModuleY, 0.5, 19.6, 9.8);
+		detector.update(new double[] { 3, 3, 3, 3 }, kForward, 0, 0, 0, kDt);
+		for (int i = 0; i < 4; i++) {
+			assertFalse(detector.isSlipping(i));
+			assertEquals(3, detector.getPredictedSpeed(i), kEpsilon);
+		}
+		assertTrue(detector.hasConsensus());
+		assertFalse(detector.isColliding());
+	}
+
+	@Test
+	void accelerationTheWheelsDontSeeIsACollision() {
+		var detector = cruising();
+		detector.update(new double[] { 1, 1, 1, 1 }, kForward, 0, 15, 0, kDt);
+		assertTrue(detector.isColliding());
+		for (int i = 0; i < 4; i++)
+			assertFalse(detector.isSlipping(i));
+	}
+
+	@Test
+	void accelerationTheWheelsSeeIsntACollision() {
+		var detector = cruising();
+		// 1 m/s to 1.1 m/s in 20 ms is 5 m/s^2
+		detector.update(new double[] { 1.1, 1.1, 1.1, 1.1 }, kForward, 0, 5, 0, kDt);
+		assertFalse(detector.isColliding());
+	}
+}
@@ -0,0 +1,108 @@
+package frc.loganalytics;
+
+/**
+ * A fixed-bucket histogram of durations, cheap enough to update for every
+ * record and mergeable across logs.
+ */
+public class Histogram {
+	private final double m_bucketWidthMs;
+	private final long[] m_counts;
+	private long m_total = 0;
+	private double m_maxMs = 0;
+	private double m_sumMs = 0;
+
+	/**
+	 * Creates a new Histogram. Durations past the last bucket are counted in it.
+	 *
+	 * @param bucketWidthMs The width of each bucket in milliseconds
+	 * @param buckets The number of buckets
+	 */
+	public Histogram(double bucketWidthMs, int buckets) {
+		m_bucketWidthMs = bucketWidthMs;
+		m_counts = new long[buckets];
+	}
+
+	/**
+	 * Adds a duration.
+	 *
+	 * @param ms The duration in milliseconds
+	 */
+	public void add(double ms) {
+		int bucket = (int) Math.min(m_counts.length - 1, Math.max(0, ms / m_bucketWidthMs));
+		m_counts[bucket]++;
+		m_total++;
+		m_sumMs += ms;
+		m_maxMs = Math.max(m_maxMs, ms);
+	}
+
+	/**
+	 * Adds all of another histogram's durations to this one.
+	 *
+	 * @param other A histogram with the same buckets
+	 */
+	public void merge(Histogram other) {
+		for (int i = 0; i < m_counts.length; i++)
+			m_counts[i] += other.m_counts[i];
+		m_total += other.m_total;
+		m_sumMs += other.m_sumMs;
+		m_maxMs = Math.max(m_maxMs, other.m_maxMs);
+	}
+
+	/**
+	 * Returns the upper edge of the bucket containing a percentile.
+	 *
+	 * @param percentile The percentile, from 0 to 100
+	 * @return The duration in milliseconds
+	 */
+	public double percentile(double percentile) {
+		long target = (long) Math.ceil(m_total * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < m_counts.length; i++) {
+			seen += m_counts[i];
+			if (seen >= target && seen > 0)
+				return (i + 1) * m_bucketWidthMs;
+		}
+		return m_maxMs;
+	}
+
+	/**
+	 * Returns the number of durations added.
+	 *
+	 * @return The count
+	 */
+	public long count() {
+		return m_total;
+	}
+
+	/**
+	 * Returns the mean duration.
+	 *
+	 * @return The mean in milliseconds
+	 */
+	public double mean() {
+		return m_total == 0 ? 0 : m_sumMs / m_total;
+	}
+
+	/**
+	 * Returns the longest duration.
+	 *
+	 * @return The maximum in milliseconds
+	 */
+	public double max() {
+		return m_maxMs;
+	}
+
+	/**
+	 * Counts the durations in the buckets at or past a threshold, so durations
+	 * up to one bucket width below it may be included.
+	 *
+	 * @param ms The threshold in milliseconds
+	 * @return The number of durations past the threshold
+	 */
+	public long countAbove(double ms) {
+		long count = 0;
+		for (int i = (int) Math.min(m_counts.length, Math.ceil(ms / m_bucketWidthMs)); i < m_counts.length; i++)
+			count += m_counts[i];
+		return count;
+	}
+}
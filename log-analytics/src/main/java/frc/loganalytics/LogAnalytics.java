@@ -0,0 +1,47 @@
+package frc.loganalytics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes the drive data in a set of {@code .wpilog} files, one file per core
+ * at a time, and prints a report for each file and for all of them together.
+ *
+ * Usage: {@code gradlew :log-analytics:run --args="<log files or folders>"}
+ */
+public final class LogAnalytics {
+	private LogAnalytics() {
+	}
+
+	public static void main(String... args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: LogAnalytics <log files or folders>...");
+			System.exit(1);
+		}
+		List<Path> logs = new ArrayList<>();
+		for (String arg : args) {
+			try (Stream<Path> files = Files.walk(Path.of(arg))) {
+				files.filter(file -> file.toString().endsWith(".wpilog")).sorted().forEach(logs::add);
+			}
+		}
+		MatchAnalyzer event = logs.parallelStream().map(LogAnalytics::analyze).collect(MatchAnalyzer::new,
+				MatchAnalyzer::merge, MatchAnalyzer::merge);
+		event.report(System.out, "All " + logs.size() + " logs");
+	}
+
+	private static MatchAnalyzer analyze(Path log) {
+		var analyzer = new MatchAnalyzer();
+		try {
+			WpiLogReader.read(log, analyzer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		analyzer.report(System.out, log.getFileName().toString());
+		return analyzer;
+	}
+}
@@ -0,0 +1,165 @@
+package frc.loganalytics;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Computes drive statistics from the topics {@code Robot} and
+ * {@code DriveSubsystem} publish:
+ * <ul>
+ * <li>Loop time, from {@code /Robot/Loop Time (ms)}, which the robot publishes
+ * every loop.
+ * <li>Odometry drift, as how far {@code Pose} moves while every drive motor is
+ * at 0 V and the robot should be sitting still.
+ * <li>Per-module tracking error between {@code Target Swerve Modules States} and
+ * {@code Current Swerve Modules States}. Both carry drive motor voltage in the
+ * speed field (see {@code SwerveModule.setModuleState}).
+ * </ul>
+ * Struct payloads are decoded in place from the mapped log.
+ */
+public class MatchAnalyzer implements WpiLogReader.Handler {
+	private static final int kModules = 4;
+	private static final String[] kModuleNames = { "FL", "FR", "BL", "BR" };
+	// Pose2d: x, y, rotation (radians). SwerveModuleState: speed, angle (radians)
+	private static final int kPose2dSize = 24;
+	private static final int kModuleStateSize = 16;
+	private static final double kStoppedVoltage = 0.05;
+
+	private int m_loopTimeEntry = -1;
+	private int m_poseEntry = -1;
+	private int m_targetStatesEntry = -1;
+	private int m_currentStatesEntry = -1;
+
+	private final Histogram m_loopTimes = new Histogram(0.5, 400);
+	private boolean m_stopped = true;
+
+	private boolean m_hasPose = false;
+	private double m_lastX;
+	private double m_lastY;
+	private double m_lastHeading;
+	private double m_driftMeters = 0;
+	private double m_driftRadians = 0;
+	private double m_stoppedSeconds = 0;
+	private long m_lastPoseTimestamp = -1;
+
+	private boolean m_hasTarget = false;
+	private final double[] m_targetVolts = new double[kModules];
+	private final double[] m_targetAngles = new double[kModules];
+	private final double[] m_angleErrorSumSq = new double[kModules];
+	private final double[] m_angleErrorMax = new double[kModules];
+	private final double[] m_voltErrorSumSq = new double[kModules];
+	private long m_trackingSamples = 0;
+
+	@Override
+	public void onStart(int entry, String name, String type) {
+		if (name.endsWith("/Robot/Loop Time (ms)") && type.equals("double")) {
+			m_loopTimeEntry = entry;
+		} else if (name.endsWith("/SmartDashboard/Pose") && type.equals("struct:Pose2d")) {
+			m_poseEntry = entry;
+		} else if (name.endsWith("/SmartDashboard/Target Swerve Modules States")
+				&& type.equals("struct:SwerveModuleState[]")) {
+			m_targetStatesEntry = entry;
+		} else if (name.endsWith("/SmartDashboard/Current Swerve Modules States")
+				&& type.equals("struct:SwerveModuleState[]")) {
+			m_currentStatesEntry = entry;
+		}
+	}
+
+	@Override
+	public void onData(int entry, long timestampMicros, ByteBuffer data, int offset, int size) {
+		if (entry == m_loopTimeEntry && size == 8) {
+			m_loopTimes.add(data.getDouble(offset));
+		} else if (entry == m_poseEntry && size == kPose2dSize) {
+			onPose(timestampMicros, data.getDouble(offset), data.getDouble(offset + 8), data.getDouble(offset + 16));
+		} else if (entry == m_targetStatesEntry && size == kModules * kModuleStateSize) {
+			for (int i = 0; i < kModules; i++) {
+				m_targetVolts[i] = data.getDouble(offset + i * kModuleStateSize);
+				m_targetAngles[i] = data.getDouble(offset + i * kModuleStateSize + 8);
+			}
+			m_hasTarget = true;
+		} else if (entry == m_currentStatesEntry && size == kModules * kModuleStateSize) {
+			onCurrentStates(data, offset);
+		}
+	}
+
+	private void onPose(long timestampMicros, double x, double y, double heading) {
+		if (m_hasPose && m_stopped) {
+			m_driftMeters += Math.hypot(x - m_lastX, y - m_lastY);
+			m_driftRadians += Math.abs(wrap(heading - m_lastHeading));
+			m_stoppedSeconds += (timestampMicros - m_lastPoseTimestamp) / 1e6;
+		}
+		m_hasPose = true;
+		m_lastX = x;
+		m_lastY = y;
+		m_lastHeading = heading;
+		m_lastPoseTimestamp = timestampMicros;
+	}
+
+	private void onCurrentStates(ByteBuffer data, int offset) {
+		boolean stopped = true;
+		for (int i = 0; i < kModules; i++) {
+			double volts = data.getDouble(offset + i * kModuleStateSize);
+			double angle = data.getDouble(offset + i * kModuleStateSize + 8);
+			stopped &= Math.abs(volts) < kStoppedVoltage;
+			if (m_hasTarget) {
+				double angleError = Math.abs(wrap(m_targetAngles[i] - angle));
+				m_angleErrorSumSq[i] += angleError * angleError;
+				m_angleErrorMax[i] = Math.max(m_angleErrorMax[i], angleError);
+				double voltError = m_targetVolts[i] - volts;
+				m_voltErrorSumSq[i] += voltError * voltError;
+			}
+		}
+		if (m_hasTarget)
+			m_trackingSamples++;
+		m_stopped = stopped;
+	}
+
+	private static double wrap(double radians) {
+		return Math.IEEEremainder(radians, 2 * Math.PI);
+	}
+
+	/**
+	 * Adds another analyzer's statistics to this one's, for summarizing a whole
+	 * event.
+	 *
+	 * @param other The analyzer of another log
+	 */
+	public void merge(MatchAnalyzer other) {
+		m_loopTimes.merge(other.m_loopTimes);
+		m_driftMeters += other.m_driftMeters;
+		m_driftRadians += other.m_driftRadians;
+		m_stoppedSeconds += other.m_stoppedSeconds;
+		for (int i = 0; i < kModules; i++) {
+			m_angleErrorSumSq[i] += other.m_angleErrorSumSq[i];
+			m_angleErrorMax[i] = Math.max(m_angleErrorMax[i], other.m_angleErrorMax[i]);
+			m_voltErrorSumSq[i] += other.m_voltErrorSumSq[i];
+		}
+		m_trackingSamples += other.m_trackingSamples;
+	}
+
+	/**
+	 * Prints the statistics.
+	 *
+	 * @param out Where to print to
+	 * @param title The heading of the report
+	 */
+	public void report(PrintStream out, String title) {
+		var report = new StringBuilder();
+		report.append(String.format("== %s ==%n", title));
+		report.append(String.format("Loop time: %d loops, mean %.2f ms, p50 %.1f ms, p95 %.1f ms, p99 %.1f ms,"
+				+ " max %.1f ms, %d of 21 ms or more%n", m_loopTimes.count(), m_loopTimes.mean(),
+				m_loopTimes.percentile(50), m_loopTimes.percentile(95), m_loopTimes.percentile(99), m_loopTimes.max(),
+				m_loopTimes.countAbove(21)));
+		report.append(String.format("Odometry drift while stopped (%.0f s): %.3f m, %.2f deg%n", m_stoppedSeconds,
+				m_driftMeters, Math.toDegrees(m_driftRadians)));
+		report.append(String.format("Module tracking error (%d samples):%n", m_trackingSamples));
+		for (int i = 0; i < kModules; i++) {
+			double n = Math.max(1, m_trackingSamples);
+			report.append(String.format("  %s: angle RMS %.2f deg, max %.2f deg; voltage RMS %.2f V%n",
+					kModuleNames[i], Math.toDegrees(Math.sqrt(m_angleErrorSumSq[i] / n)),
+					Math.toDegrees(m_angleErrorMax[i]), Math.sqrt(m_voltErrorSumSq[i] / n)));
+		}
+		// Printed in one go so reports from parallel workers don't interleave
+		out.print(report);
+	}
+}
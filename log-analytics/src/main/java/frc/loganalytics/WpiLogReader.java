@@ -0,0 +1,137 @@
+package frc.loganalytics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a WPILib data log ({@code .wpilog}) in a single streaming pass over a
+ * memory-mapped file. Data records are handed to a {@link Handler} as an offset
+ * into the mapped buffer, so nothing is copied unless the handler copies it.
+ *
+ * @see <a href=
+ *      "https://github.com/wpilibsuite/allwpilib/blob/main/wpiutil/doc/datalog.adoc">The
+ *      data log file format</a>
+ */
+public class WpiLogReader {
+	/**
+	 * Receives the records of a log.
+	 */
+	public interface Handler {
+		/**
+		 * Called when an entry is started.
+		 *
+		 * @param entry The entry ID, used by the data records of the entry
+		 * @param name The name of the entry
+		 * @param type The type of the entry, e.g. {@code "struct:Pose2d"}
+		 */
+		void onStart(int entry, String name, String type);
+
+		/**
+		 * Called for each data record.
+		 *
+		 * @param entry The entry ID
+		 * @param timestampMicros The timestamp of the record in microseconds
+		 * @param data The mapped log; valid only for the duration of the call
+		 * @param offset The offset of the payload in {@code data}
+		 * @param size The size of the payload in bytes
+		 */
+		void onData(int entry, long timestampMicros, ByteBuffer data, int offset, int size);
+	}
+
+	private static final byte[] kMagic = "WPILOG".getBytes(StandardCharsets.US_ASCII);
+	private static final int kControlStart = 0;
+
+	private WpiLogReader() {
+	}
+
+	/**
+	 * Reads a log file.
+	 *
+	 * @param file The log file
+	 * @param handler Receives the records
+	 * @throws IOException If the file can't be read or isn't a valid log
+	 */
+	public static void read(Path file, Handler handler) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file + " is too large to map (over 2 GB)");
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			data.order(ByteOrder.LITTLE_ENDIAN);
+			read(data, handler, file.toString());
+		}
+	}
+
+	/**
+	 * Reads a log that is already in memory.
+	 *
+	 * @param data The log, in little-endian order
+	 * @param handler Receives the records
+	 * @param name The name of the log, for error messages
+	 * @throws IOException If the data isn't a valid log
+	 */
+	static void read(ByteBuffer data, Handler handler, String name) throws IOException {
+		int limit = data.limit();
+		if (limit < 12)
+			throw new IOException(name + " is too short to be a data log");
+		for (int i = 0; i < kMagic.length; i++) {
+			if (data.get(i) != kMagic[i])
+				throw new IOException(name + " is not a data log");
+		}
+		int extraHeaderLength = data.getInt(8);
+		int position = 12 + extraHeaderLength;
+		while (position < limit) {
+			int header = data.get(position) & 0xff;
+			int entryLength = (header & 0x3) + 1;
+			int sizeLength = ((header >> 2) & 0x3) + 1;
+			int timestampLength = ((header >> 4) & 0x7) + 1;
+			int payload = position + 1 + entryLength + sizeLength + timestampLength;
+			if (payload > limit)
+				break; // Truncated record at the end of the log
+			int entry = (int) readVarInt(data, position + 1, entryLength);
+			int size = (int) readVarInt(data, position + 1 + entryLength, sizeLength);
+			long timestamp = readVarInt(data, position + 1 + entryLength + sizeLength, timestampLength);
+			if (size < 0 || payload + size > limit)
+				break;
+			if (entry == 0) {
+				readControlRecord(data, payload, size, handler);
+			} else {
+				handler.onData(entry, timestamp, data, payload, size);
+			}
+			position = payload + size;
+		}
+	}
+
+	/**
+	 * Reads an unsigned little-endian integer of 1 to 8 bytes.
+	 */
+	private static long readVarInt(ByteBuffer data, int offset, int length) {
+		long value = 0;
+		for (int i = 0; i < length; i++)
+			value |= (data.get(offset + i) & 0xffL) << (8 * i);
+		return value;
+	}
+
+	private static void readControlRecord(ByteBuffer data, int offset, int size, Handler handler) {
+		// Finish and set metadata records don't matter for analysis
+		if (size < 17 || data.get(offset) != kControlStart)
+			return;
+		int entry = data.getInt(offset + 1);
+		int nameLength = data.getInt(offset + 5);
+		String name = readString(data, offset + 9, nameLength);
+		int typeLength = data.getInt(offset + 9 + nameLength);
+		String type = readString(data, offset + 13 + nameLength, typeLength);
+		handler.onStart(entry, name, type);
+	}
+
+	private static String readString(ByteBuffer data, int offset, int length) {
+		var bytes = new byte[length];
+		data.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,51 @@
+package frc.loganalytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class HistogramTest {
+	private static final double kEpsilon = 1e-9;
+
+	@Test
+	void percentileIsTheUpperEdgeOfItsBucket() {
+		var histogram = new Histogram(1, 10);
+		for (int i = 0; i < 100; i++)
+			histogram.add(i < 90 ? 2.5 : 7.2);
+		assertEquals(3, histogram.percentile(50), kEpsilon);
+		assertEquals(3, histogram.percentile(90), kEpsilon);
+		assertEquals(8, histogram.percentile(91), kEpsilon);
+		assertEquals(8, histogram.percentile(100), kEpsilon);
+	}
+
+	@Test
+	void durationsPastTheLastBucketCountInIt() {
+		var histogram = new Histogram(1, 10);
+		histogram.add(50);
+		assertEquals(10, histogram.percentile(100), kEpsilon);
+		assertEquals(50, histogram.max(), kEpsilon);
+		assertEquals(1, histogram.countAbove(9));
+	}
+
+	@Test
+	void emptyHistogramHasNoDurations() {
+		var histogram = new Histogram(1, 10);
+		assertEquals(0, histogram.count());
+		assertEquals(0, histogram.mean(), kEpsilon);
+		assertEquals(0, histogram.percentile(99), kEpsilon);
+	}
+
+	@Test
+	void mergeAddsEverything() {
+		var a = new Histogram(0.5, 100);
+		var b = new Histogram(0.5, 100);
+		a.add(20);
+		b.add(22);
+		b.add(30);
+		a.merge(b);
+		assertEquals(3, a.count());
+		assertEquals(24, a.mean(), kEpsilon);
+		assertEquals(30, a.max(), kEpsilon);
+		assertEquals(2, a.countAbove(21));
+	}
+}
@@ -0,0 +1,25 @@
+package frc.loganalytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+class MatchAnalyzerTest {
+	@Test
+	void loopTimesComeFromTheLoopTimeTopic() throws IOException {
+		var fixture = new WpiLogFixture("").start(1, "NT:/Robot/Loop Time (ms)", "double");
+		fixture.record(1, 20000, WpiLogFixture.doublePayload(20));
+		fixture.record(1, 40000, WpiLogFixture.doublePayload(20));
+		fixture.record(1, 65000, WpiLogFixture.doublePayload(25));
+		var analyzer = new MatchAnalyzer();
+		WpiLogReader.read(fixture.build(), analyzer, "test.wpilog");
+		var out = new ByteArrayOutputStream();
+		analyzer.report(new PrintStream(out), "Test");
+		assertTrue(out.toString().contains("Loop time: 3 loops, mean 21.67 ms"), out.toString());
+		assertTrue(out.toString().contains("1 of 21 ms or more"), out.toString());
+	}
+}
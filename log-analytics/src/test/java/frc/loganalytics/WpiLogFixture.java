@@ -0,0 +1,145 @@
+package frc.loganalytics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds a data log in memory, for feeding to {@link WpiLogReader} in tests.
+ */
+class WpiLogFixture {
+	private final ByteArrayOutputStream m_bytes = new ByteArrayOutputStream();
+
+	/**
+	 * Starts a log.
+	 *
+	 * @param extraHeader The extra header string
+	 */
+	WpiLogFixture(String extraHeader) {
+		m_bytes.writeBytes("WPILOG".getBytes(StandardCharsets.US_ASCII));
+		writeInt(0x0100, 2);
+		byte[] header = extraHeader.getBytes(StandardCharsets.UTF_8);
+		writeInt(header.length, 4);
+		m_bytes.writeBytes(header);
+	}
+
+	/**
+	 * Adds a record with the smallest field widths that fit.
+	 *
+	 * @param entry The entry ID
+	 * @param timestampMicros The timestamp in microseconds
+	 * @param payload The payload
+	 * @return This fixture
+	 */
+	WpiLogFixture record(int entry, long timestampMicros, byte[] payload) {
+		return record(entry, width(entry), width(payload.length), timestampMicros, width(timestampMicros), payload);
+	}
+
+	/**
+	 * Adds a record with the given field widths.
+	 *
+	 * @param entry The entry ID
+	 * @param entryLength The width of the entry ID in bytes, from 1 to 4
+	 * @param sizeLength The width of the payload size in bytes, from 1 to 4
+	 * @param timestampMicros The timestamp in microseconds
+	 * @param timestampLength The width of the timestamp in bytes, from 1 to 8
+	 * @param payload The payload
+	 * @return This fixture
+	 */
+	WpiLogFixture record(int entry, int entryLength, int sizeLength, long timestampMicros, int timestampLength,
+			byte[] payload) {
+		m_bytes.write((entryLength - 1) | (sizeLength - 1) << 2 | (timestampLength - 1) << 4);
+		writeInt(entry, entryLength);
+		writeInt(payload.length, sizeLength);
+		writeInt(timestampMicros, timestampLength);
+		m_bytes.writeBytes(payload);
+		return this;
+	}
+
+	/**
+	 * Adds a start control record.
+	 *
+	 * @param entry The entry ID being started
+	 * @param name The name of the entry
+	 * @param type The type of the entry
+	 * @return This fixture
+	 */
+	WpiLogFixture start(int entry, String name, String type) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+		var payload = ByteBuffer.allocate(17 + nameBytes.length + typeBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		payload.put((byte) 0).putInt(entry);
+		payload.putInt(nameBytes.length).put(nameBytes);
+		payload.putInt(typeBytes.length).put(typeBytes);
+		payload.putInt(0); // No metadata
+		return record(0, 0, payload.array());
+	}
+
+	/**
+	 * Adds a finish control record.
+	 *
+	 * @param entry The entry ID being finished
+	 * @return This fixture
+	 */
+	WpiLogFixture finish(int entry) {
+		return record(0, 0, ByteBuffer.allocate(5).order(ByteOrder.LITTLE_ENDIAN).put((byte) 1).putInt(entry).array());
+	}
+
+	/**
+	 * Adds a set metadata control record.
+	 *
+	 * @param entry The entry ID whose metadata is set
+	 * @param metadata The metadata
+	 * @return This fixture
+	 */
+	WpiLogFixture setMetadata(int entry, String metadata) {
+		byte[] bytes = metadata.getBytes(StandardCharsets.UTF_8);
+		var payload = ByteBuffer.allocate(9 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		payload.put((byte) 2).putInt(entry).putInt(bytes.length).put(bytes);
+		return record(0, 0, payload.array());
+	}
+
+	/**
+	 * Returns the log.
+	 *
+	 * @return The log, in little-endian order
+	 */
+	ByteBuffer build() {
+		return ByteBuffer.wrap(m_bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Returns the log with bytes cut off the end, as when the robot loses power
+	 * mid-write.
+	 *
+	 * @param bytes How many bytes to cut off
+	 * @return The log, in little-endian order
+	 */
+	ByteBuffer buildTruncated(int bytes) {
+		byte[] log = m_bytes.toByteArray();
+		return ByteBuffer.wrap(log, 0, log.length - bytes).slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Encodes a double payload.
+	 *
+	 * @param value The value
+	 * @return The payload
+	 */
+	static byte[] doublePayload(double value) {
+		return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putDouble(value).array();
+	}
+
+	private static int width(long value) {
+		int width = 1;
+		while (width < 8 && value >>> (8 * width) != 0)
+			width++;
+		return width;
+	}
+
+	private void writeInt(long value, int length) {
+		for (int i = 0; i < length; i++)
+			m_bytes.write((int) (value >>> (8 * i)));
+	}
+}
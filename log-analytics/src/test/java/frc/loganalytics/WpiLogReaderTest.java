@@ -0,0 +1,91 @@
+package frc.loganalytics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class WpiLogReaderTest {
+	/** Records what it is handed as strings, copying the payloads out. */
+	private static class RecordingHandler implements WpiLogReader.Handler {
+		private final List<String> m_records = new ArrayList<>();
+
+		@Override
+		public void onStart(int entry, String name, String type) {
+			m_records.add("start " + entry + " " + name + " " + type);
+		}
+
+		@Override
+		public void onData(int entry, long timestampMicros, ByteBuffer data, int offset, int size) {
+			var payload = new byte[size];
+			data.get(offset, payload);
+			m_records.add("data " + entry + " " + timestampMicros + " "
+					+ new String(payload, StandardCharsets.UTF_8));
+		}
+	}
+
+	private static List<String> read(ByteBuffer log) throws IOException {
+		var handler = new RecordingHandler();
+		WpiLogReader.read(log, handler, "test.wpilog");
+		return handler.m_records;
+	}
+
+	private static byte[] text(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void readsStartAndDataRecords() throws IOException {
+		var log = new WpiLogFixture("").start(1, "NT:/a", "string").record(1, 20000, text("hi")).build();
+		assertEquals(List.of("start 1 NT:/a string", "data 1 20000 hi"), read(log));
+	}
+
+	@Test
+	void skipsTheExtraHeader() throws IOException {
+		var log = new WpiLogFixture("{\"team\":20}").start(1, "NT:/a", "string").build();
+		assertEquals(List.of("start 1 NT:/a string"), read(log));
+	}
+
+	@Test
+	void readsEveryFieldWidth() throws IOException {
+		var fixture = new WpiLogFixture("").start(70000, "NT:/a", "string");
+		fixture.record(70000, 4, 4, 0x0102030405060708L, 8, text("wide"));
+		fixture.record(70000, 3, 2, 1, 1, text("mixed"));
+		assertEquals(List.of("start 70000 NT:/a string", "data 70000 72623859790382856 wide", "data 70000 1 mixed"),
+				read(fixture.build()));
+	}
+
+	@Test
+	void ignoresFinishAndMetadataControlRecords() throws IOException {
+		var log = new WpiLogFixture("").start(1, "NT:/a", "string").setMetadata(1, "{}").record(1, 5, text("x"))
+				.finish(1).build();
+		assertEquals(List.of("start 1 NT:/a string", "data 1 5 x"), read(log));
+	}
+
+	@Test
+	void stopsAtATruncatedPayload() throws IOException {
+		var log = new WpiLogFixture("").start(1, "NT:/a", "string").record(1, 5, text("kept"))
+				.record(1, 6, text("lost")).buildTruncated(1);
+		assertEquals(List.of("start 1 NT:/a string", "data 1 5 kept"), read(log));
+	}
+
+	@Test
+	void stopsAtATruncatedRecordHeader() throws IOException {
+		// The last record is a 4 byte header and a 4 byte payload, so this cuts
+		// into the header
+		var log = new WpiLogFixture("").start(1, "NT:/a", "string").record(1, 5, text("kept"))
+				.record(1, 6, text("lost")).buildTruncated(5);
+		assertEquals(List.of("start 1 NT:/a string", "data 1 5 kept"), read(log));
+	}
+
+	@Test
+	void rejectsFilesThatArentLogs() {
+		var log = ByteBuffer.wrap(text("NOTALOG\0\0\0\0\0"));
+		assertThrows(IOException.class, () -> read(log));
+	}
+}
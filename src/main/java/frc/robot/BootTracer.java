@@ -0,0 +1,72 @@
+package frc.robot;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Measures how long each phase of booting the robot code takes, so restarts can
+ * be made faster. Phases that are entered more than once (e.g. configuring each
+ * device) are added up. The results are printed and put on SmartDashboard under
+ * {@code Boot/} once {@link #report()} is called.
+ */
+public final class BootTracer {
+	private static final Map<String, Long> s_phaseStarts = new HashMap<>();
+	private static final Map<String, Long> s_phaseNanos = new LinkedHashMap<>();
+	private static final Map<String, Integer> s_phaseClasses = new LinkedHashMap<>();
+	private static boolean s_reported = false;
+
+	private BootTracer() {
+	}
+
+	/**
+	 * Records how long the JVM took to start before {@code main} was called. Should
+	 * be the first thing {@code main} does.
+	 */
+	public static void markJvmStarted() {
+		s_phaseNanos.put("JVM startup", ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000);
+		s_phaseClasses.put("JVM startup", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+	}
+
+	/**
+	 * Starts timing a phase.
+	 *
+	 * @param phase The name of the phase
+	 */
+	public static void begin(String phase) {
+		s_phaseStarts.put(phase, System.nanoTime());
+		s_phaseClasses.merge(phase, -ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(), Integer::sum);
+	}
+
+	/**
+	 * Stops timing a phase.
+	 *
+	 * @param phase The name of the phase
+	 */
+	public static void end(String phase) {
+		Long start = s_phaseStarts.remove(phase);
+		if (start == null)
+			return;
+		s_phaseNanos.merge(phase, System.nanoTime() - start, Long::sum);
+		s_phaseClasses.merge(phase, ManagementFactory.getClassLoadingMXBean().getLoadedClassCount(), Integer::sum);
+	}
+
+	/**
+	 * Prints and publishes the time spent in each phase. Only the first call does
+	 * anything.
+	 */
+	public static void report() {
+		if (s_reported)
+			return;
+		s_reported = true;
+		for (var phase : s_phaseNanos.entrySet()) {
+			double ms = phase.getValue() / 1e6;
+			int classes = s_phaseClasses.getOrDefault(phase.getKey(), 0);
+			System.out.printf("Boot: %-28s %8.1f ms %6d classes loaded%n", phase.getKey(), ms, classes);
+			SmartDashboard.putNumber("Boot/" + phase.getKey() + " (ms)", ms);
+		}
+	}
+}
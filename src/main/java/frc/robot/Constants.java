@@ -14,6 +14,16 @@ public class Constants {
 		public static final double kTriggerDeadzone = .05;
 	}
 
+	public static final class RobotConstants {
+		// LoopBudgetGovernor.java Constants
+		public static final double kLoopBudgetReserve = 0.004; // Left for the work WPILib does after robotPeriodic
+		public static final int kMaxDeferredCycles = 50; // Work shed this many cycles in a row runs if any time is left
+		public static final double kTaskCostSmoothing = 0.2; // Weight of the latest run in the cost estimate
+
+		// ThreadManager.java Constants
+		public static final double kThreadStatsPeriod = 1; // How often thread CPU time and jitter are published
+	}
+
 	public static final class DriveConstants {
 		// CAN IDs (updated)
 		public static final int kFrontRightDrivePort = 10;
@@ -63,6 +73,11 @@ public class Constants {
 				kModuleDistFromCenter);
 		public static final Translation2d kBackRightLocation = new Translation2d(-kModuleDistFromCenter,
 				-kModuleDistFromCenter);
+		// The module locations split into components, in order of FL, FR, BL, BR
+		public static final double[] kModuleX = { kFrontLeftLocation.getX(), kFrontRightLocation.getX(),
+				kBackLeftLocation.getX(), kBackRightLocation.getX() };
+		public static final double[] kModuleY = { kFrontLeftLocation.getY(), kFrontRightLocation.getY(),
+				kBackLeftLocation.getY(), kBackRightLocation.getY() };
 
 		public static final int kEncoderDepth = 4;
 		public static final int kEncoderMeasurementPeriod = 16;
@@ -91,6 +106,39 @@ public class Constants {
 			kSteerConfig.CurrentLimits.SupplyCurrentLimitEnable = true;
 		}
 
+		// CurrentBudgetAllocator.java Constants
+		public static final double kCurrentBudgetPeriod = 0.01; // Runs at 100 Hz
+		public static final double kBatteryResistance = 0.02; // Ohms (same as BatterySim's default)
+		public static final double kBrownoutGuardVoltage = 8.0; // Keep the battery above this under load
+		public static final double kMinTotalSupplyCurrent = 140;
+		public static final double kMaxTotalSupplyCurrent = 520;
+		public static final double kCurrentBudgetRiseRate = 0.05; // Fraction of the headroom regained per update
+		public static final double kSteerCurrentMargin = 5; // Set aside per steer motor on top of what it draws
+		public static final double kDriveMinSupplyCurrent = 30;
+		public static final double kDriveMaxSupplyCurrent = 70;
+		public static final double kCurrentLimitStep = 2.5; // Smaller changes aren't pushed to the motors
+
+		// DriveStateStore.java Constants
+		public static final double kDriveStateFlushCheckPeriod = 0.5; // How often the flusher checks for work
+		public static final double kDriveStateEnabledFlushPeriod = 5; // Time between flushes while enabled (seconds)
+		public static final double kDriveStateMaxAge = 60; // Older records aren't restored (seconds)
+		public static final double kEncoderRestoreTolerance = 0.02; // Meters
+
+		// GyroService.java Constants
+		public static final double kGyroSamplePeriod = 0.005; // Samples the navX at 200 Hz
+		public static final double kGyroStaleTimeout = 0.1; // Falls back to wheel yaw if no new data for this long
+
+		// Slip and collision detection, passed to drive-core's WheelSlipDetector
+		public static final double kGravity = 9.81; // Meters per second squared
+		public static final double kSlipSpeedThreshold = 0.5; // Meters per second
+		public static final double kSlipAccelThreshold = 2 * kGravity;
+		public static final double kCollisionAccelThreshold = 1 * kGravity;
+
+		// Latency compensation
+		public static final double kActuationLatency = 0.01; // From calculating a command to the motor applying it
+		public static final double kMaxLatencyCompensation = 0.1; // Older readings aren't extrapolated any further
+		public static final double kMaxLoopPeriod = 0.1; // Longer gaps (e.g. right after boot) are treated as this
+
 		public static final double kTeleopDriveMaxSpeed = 12.0; // 5 meters per second
 		public static final double kTeleopTurnMaxAngularSpeed = Math.toRadians(360 * 5);
 
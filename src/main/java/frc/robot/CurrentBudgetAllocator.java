@@ -0,0 +1,70 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Sets the drive motor supply current limits from how much current the battery
+ * can deliver before it sags too far.
+ *
+ * The battery is modeled as an open-circuit voltage behind an internal
+ * resistance. Its open-circuit voltage is estimated from the measured voltage
+ * and current, which gives the total current it can deliver while staying above
+ * {@code kBrownoutGuardVoltage}. Steer motors are served first since losing
+ * steering is worse than losing acceleration: their measured draw plus a margin
+ * is set aside, and the drive motors split whatever is left. The steer motors
+ * keep their configured limits.
+ */
+public class CurrentBudgetAllocator {
+	// NaN until the first update so the budget starts from a measurement
+	private double m_budget = Double.NaN;
+	private double m_driveLimit = kDriveConfig.CurrentLimits.SupplyCurrentLimit;
+
+	/**
+	 * Recalculates the drive motor supply current limit.
+	 *
+	 * @param batteryVoltage The measured battery voltage in volts
+	 * @param driveCurrent The total measured supply current of the four drive
+	 *        motors in amps
+	 * @param steerCurrent The total measured supply current of the four steer
+	 *        motors in amps
+	 * @return Whether the limit changed enough to be worth pushing to the motors
+	 */
+	public boolean update(double batteryVoltage, double driveCurrent, double steerCurrent) {
+		double openCircuitVoltage = batteryVoltage + (driveCurrent + steerCurrent) * kBatteryResistance;
+		double target = (openCircuitVoltage - kBrownoutGuardVoltage) / kBatteryResistance;
+		target = MathUtil.clamp(target, kMinTotalSupplyCurrent, kMaxTotalSupplyCurrent);
+		// Drop the budget immediately when the battery sags, but only raise it slowly
+		if (Double.isNaN(m_budget) || target < m_budget) {
+			m_budget = target;
+		} else {
+			m_budget += (target - m_budget) * kCurrentBudgetRiseRate;
+		}
+		double steerReserve = steerCurrent + 4 * kSteerCurrentMargin;
+		double driveLimit = MathUtil.clamp((m_budget - steerReserve) / 4, kDriveMinSupplyCurrent,
+				kDriveMaxSupplyCurrent);
+		if (Math.abs(driveLimit - m_driveLimit) < kCurrentLimitStep)
+			return false;
+		m_driveLimit = driveLimit;
+		return true;
+	}
+
+	/**
+	 * Returns the total supply current budget.
+	 *
+	 * @return The budget in amps
+	 */
+	public double getBudget() {
+		return m_budget;
+	}
+
+	/**
+	 * Returns the supply current limit for each drive motor.
+	 *
+	 * @return The limit in amps
+	 */
+	public double getDriveLimit() {
+		return m_driveLimit;
+	}
+}
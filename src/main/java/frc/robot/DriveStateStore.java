@@ -0,0 +1,235 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Keeps the drive state in a memory-mapped file so the robot can pick up where
+ * it left off if the code restarts mid-match. The main loop writes the record
+ * every cycle, which is only a few memory writes. A code restart keeps the
+ * mapped page in the page cache, so the record only has to reach flash to
+ * survive the roboRIO losing power; a separate thread flushes it when the match
+ * phase changes and every few seconds while enabled, which keeps flash wear
+ * down. The record is guarded by a sequence number that is odd while a
+ * write is in progress and by a checksum, so a torn or corrupted record is
+ * never restored. While a match is still running, the disabled gap between
+ * autonomous and teleop (or a dropped connection) keeps the phase the robot was
+ * last enabled in, so a restart there still restores the pose.
+ */
+public class DriveStateStore {
+	/**
+	 * What the robot was doing when the record was written.
+	 */
+	public enum MatchPhase {
+		kDisabled, kAutonomous, kTeleop, kTest;
+
+		/**
+		 * Returns the current match phase.
+		 *
+		 * @return The match phase
+		 */
+		public static MatchPhase current() {
+			if (DriverStation.isDisabled())
+				return kDisabled;
+			if (DriverStation.isAutonomous())
+				return kAutonomous;
+			if (DriverStation.isTest())
+				return kTest;
+			return kTeleop;
+		}
+	}
+
+	/**
+	 * A restored drive state.
+	 *
+	 * @param pose The odometry pose
+	 * @param headingRadians The heading in radians
+	 * @param encoderDistances The drive encoder distances in meters, in order of
+	 *        FL, FR, BL, BR
+	 * @param matchPhase The match phase
+	 */
+	public record State(Pose2d pose, double headingRadians, double[] encoderDistances, MatchPhase matchPhase) {
+	}
+
+	private static final int kMagic = 0x44525653; // "DRVS"
+	private static final int kModules = 4;
+	// Record layout. Everything from the magic number up to the checksum is
+	// covered by the checksum.
+	private static final int kSequenceOffset = 0;
+	private static final int kMagicOffset = 8;
+	private static final int kMatchPhaseOffset = 12;
+	private static final int kWallClockOffset = 16;
+	private static final int kPoseOffset = 24;
+	private static final int kHeadingOffset = 48;
+	private static final int kEncoderOffset = 56;
+	private static final int kChecksumOffset = kEncoderOffset + kModules * 8;
+	private static final int kRecordSize = kChecksumOffset + 8;
+
+	private final File m_file = new File(Filesystem.getOperatingDirectory(), "drive-state.bin");
+	private final MappedByteBuffer m_buffer;
+	// The part of the record covered by the checksum
+	private final ByteBuffer m_checksummed;
+	private final CRC32 m_crc = new CRC32();
+	private final Notifier m_flusher;
+	// Even except while a write is in progress
+	private long m_sequence;
+	// Only used by the main thread
+	private MatchPhase m_lastMatchPhase = MatchPhase.kDisabled;
+	private MatchPhase m_lastEnabledPhase = MatchPhase.kDisabled;
+	// Set by the main thread when the match phase changes
+	private final AtomicBoolean m_flushRequested = new AtomicBoolean(false);
+	private volatile boolean m_enabled = false;
+	// Only used by the flushing thread
+	private ThreadManager.RegisteredThread m_flusherThread;
+	private double m_lastFlushTime = 0;
+
+	/** Creates a new DriveStateStore and starts flushing it in the background. */
+	public DriveStateStore() {
+		MappedByteBuffer buffer = null;
+		try (var channel = FileChannel.open(m_file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, kRecordSize);
+		} catch (IOException e) {
+			DriverStation.reportError("Failed to map " + m_file + ": " + e.getMessage(), false);
+		}
+		m_buffer = buffer;
+		if (m_buffer == null) {
+			m_checksummed = null;
+			m_flusher = null;
+			return;
+		}
+		m_checksummed = m_buffer.slice(kMagicOffset, kChecksumOffset - kMagicOffset);
+		// Keep counting up from the last record so the sequence never repeats
+		m_sequence = (m_buffer.getLong(kSequenceOffset) + 1) & ~1L;
+		m_flusher = new Notifier(this::flush);
+		m_flusher.setName("DriveStateStore");
+		m_flusher.startPeriodic(kDriveStateFlushCheckPeriod);
+	}
+
+	/**
+	 * Writes the record out to flash if the match phase changed or the robot has
+	 * been enabled for {@code kDriveStateEnabledFlushPeriod} since the last
+	 * flush. Runs on the notifier thread, since it can block for as long as the
+	 * write takes.
+	 */
+	private void flush() {
+		// Registered here since it has to happen on the notifier's own thread
+		if (m_flusherThread == null)
+			m_flusherThread = ThreadManager.register("DriveStateStore", ThreadManager.PriorityClass.kIO,
+					kDriveStateFlushCheckPeriod);
+		m_flusherThread.tick();
+		double now = Timer.getFPGATimestamp();
+		if (m_flushRequested.getAndSet(false)
+				|| (m_enabled && now - m_lastFlushTime >= kDriveStateEnabledFlushPeriod)) {
+			m_buffer.force();
+			m_lastFlushTime = now;
+		}
+	}
+
+	private long checksum() {
+		m_checksummed.rewind();
+		m_crc.reset();
+		m_crc.update(m_checksummed);
+		return m_crc.getValue();
+	}
+
+	/**
+	 * Reads the record left by the last run. It is only returned if it is
+	 * complete, less than {@code kDriveStateMaxAge} old, and was written while
+	 * the robot was being driven in autonomous or teleop, or disabled partway
+	 * through a match after either, since that is when starting over from the
+	 * origin loses the pose. Should be called before the first {@link #write}.
+	 *
+	 * @return The restored state, or null if there is nothing to restore
+	 */
+	public State restore() {
+		if (m_buffer == null || (m_buffer.getLong(kSequenceOffset) & 1) != 0
+				|| m_buffer.getInt(kMagicOffset) != kMagic || m_buffer.getLong(kChecksumOffset) != checksum())
+			return null;
+		// The wall clock is only set once the driver station connects, so an
+		// unset clock shows up as a negative or huge age
+		double age = (System.currentTimeMillis() - m_buffer.getLong(kWallClockOffset)) / 1000.0;
+		if (age < 0 || age > kDriveStateMaxAge)
+			return null;
+		int phase = m_buffer.getInt(kMatchPhaseOffset);
+		if (phase != MatchPhase.kAutonomous.ordinal() && phase != MatchPhase.kTeleop.ordinal())
+			return null;
+		var pose = new Pose2d(m_buffer.getDouble(kPoseOffset), m_buffer.getDouble(kPoseOffset + 8),
+				new Rotation2d(m_buffer.getDouble(kPoseOffset + 16)));
+		double[] encoderDistances = new double[kModules];
+		for (int i = 0; i < kModules; i++)
+			encoderDistances[i] = m_buffer.getDouble(kEncoderOffset + i * 8);
+		// Carry the phase over, so restarting again before the robot is enabled
+		// still restores
+		m_lastEnabledPhase = MatchPhase.values()[phase];
+		return new State(pose, m_buffer.getDouble(kHeadingOffset), encoderDistances, m_lastEnabledPhase);
+	}
+
+	/**
+	 * Writes the drive state. Only touches memory, so it never blocks. Should be
+	 * called once per loop from the main thread.
+	 *
+	 * @param pose The odometry pose
+	 * @param headingRadians The heading in radians
+	 * @param modulePositions The measured module positions, in order of FL, FR,
+	 *        BL, BR
+	 * @param matchPhase The match phase
+	 */
+	public void write(Pose2d pose, double headingRadians, SwerveModulePosition[] modulePositions,
+			MatchPhase matchPhase) {
+		if (m_buffer == null)
+			return;
+		m_enabled = matchPhase != MatchPhase.kDisabled;
+		if (m_enabled) {
+			m_lastEnabledPhase = matchPhase;
+		} else if (isMatchRunning()) {
+			matchPhase = m_lastEnabledPhase;
+		} else {
+			m_lastEnabledPhase = MatchPhase.kDisabled;
+		}
+		m_buffer.putLong(kSequenceOffset, m_sequence + 1);
+		m_buffer.putInt(kMagicOffset, kMagic);
+		m_buffer.putInt(kMatchPhaseOffset, matchPhase.ordinal());
+		m_buffer.putLong(kWallClockOffset, System.currentTimeMillis());
+		m_buffer.putDouble(kPoseOffset, pose.getX());
+		m_buffer.putDouble(kPoseOffset + 8, pose.getY());
+		m_buffer.putDouble(kPoseOffset + 16, pose.getRotation().getRadians());
+		m_buffer.putDouble(kHeadingOffset, headingRadians);
+		for (int i = 0; i < kModules; i++)
+			m_buffer.putDouble(kEncoderOffset + i * 8, modulePositions[i].distanceMeters);
+		m_buffer.putLong(kChecksumOffset, checksum());
+		m_sequence += 2;
+		m_buffer.putLong(kSequenceOffset, m_sequence);
+		if (matchPhase != m_lastMatchPhase) {
+			m_lastMatchPhase = matchPhase;
+			m_flushRequested.set(true);
+		}
+	}
+
+	/**
+	 * Returns whether the robot is disabled partway through a match: between
+	 * autonomous and teleop, or with time left in the match.
+	 *
+	 * @return Whether the match is still running
+	 */
+	private boolean isMatchRunning() {
+		return DriverStation.isFMSAttached()
+				&& (m_lastEnabledPhase == MatchPhase.kAutonomous || DriverStation.getMatchTime() > 0);
+	}
+}
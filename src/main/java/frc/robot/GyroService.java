@@ -0,0 +1,194 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+
+import com.studica.frc.AHRS;
+import com.studica.frc.AHRS.NavXComType;
+
+import edu.wpi.first.hal.SimDouble;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+
+/**
+ * Samples the navX on its own thread so USB I/O never happens on the main
+ * loop. The latest sample is handed over through a volatile reference, and if
+ * the navX drops out or stops producing new data, the heading falls back to yaw
+ * integrated from wheel kinematics until it comes back.
+ */
+public class GyroService {
+	/**
+	 * A single gyro reading. Angles are CCW positive, like {@link Rotation2d}.
+	 *
+	 * @param yawRadians The continuous (not wrapped) yaw in radians
+	 * @param yawRateRadiansPerSecond The yaw rate in radians per second
+	 * @param accelX The forward linear acceleration in meters per second squared
+	 *        (NaN in simulation)
+	 * @param accelY The leftward linear acceleration in meters per second squared
+	 *        (NaN in simulation)
+	 * @param timestampSeconds The FPGA time the sample was taken at in seconds
+	 */
+	public record Sample(double yawRadians, double yawRateRadiansPerSecond, double accelX, double accelY,
+			double timestampSeconds) {
+	}
+
+	private final AHRS m_gyro = new AHRS(NavXComType.kUSB1);
+	private final SimDouble m_gyroSim;
+	private final Notifier m_notifier = new Notifier(this::sample);
+	private volatile Sample m_latestSample;
+	// Only used by the sampling thread
+	private long m_lastSensorTimestamp = -1;
+	private ThreadManager.RegisteredThread m_thread;
+
+	// Only used by the main thread. Starts on the wheel yaw so the gyro gets
+	// lined up with it when its first sample arrives.
+	private boolean m_usingGyro = false;
+	private double m_offsetRadians = 0;
+	private double m_wheelYawRadians = 0;
+
+	/** Creates a new GyroService and starts sampling. */
+	public GyroService() {
+		if (RobotBase.isSimulation()) {
+			m_gyroSim = new SimDeviceSim("navX-Sensor", m_gyro.getPort()).getDouble("Yaw");
+		} else {
+			m_gyroSim = null;
+		}
+		// A placeholder that is already stale, since the navX may not have sent
+		// anything yet
+		m_latestSample = new Sample(0, 0, Double.NaN, Double.NaN, Double.NEGATIVE_INFINITY);
+		m_notifier.setName("GyroService");
+		m_notifier.startPeriodic(kGyroSamplePeriod);
+	}
+
+	/**
+	 * Reads the navX. Runs on the notifier thread. A sample is only published if
+	 * the navX is connected and has produced new data since the last one, so a
+	 * dropout shows up as a sample that keeps getting older.
+	 */
+	private void sample() {
+		// Registered here since it has to happen on the notifier's own thread
+		if (m_thread == null)
+			m_thread = ThreadManager.register("GyroService", ThreadManager.PriorityClass.kSensor, kGyroSamplePeriod);
+		m_thread.tick();
+		if (RobotBase.isReal()) {
+			if (!m_gyro.isConnected())
+				return;
+			long sensorTimestamp = m_gyro.getLastSensorTimestamp();
+			if (sensorTimestamp == m_lastSensorTimestamp)
+				return;
+			m_lastSensorTimestamp = sensorTimestamp;
+		}
+		m_latestSample = readSample();
+	}
+
+	private Sample readSample() {
+		// The simulated navX doesn't model acceleration
+		double accelX = Double.NaN;
+		double accelY = Double.NaN;
+		if (RobotBase.isReal()) { // Assumes the navX is mounted with X forward and Y left
+			accelX = m_gyro.getWorldLinearAccelX() * kGravity;
+			accelY = m_gyro.getWorldLinearAccelY() * kGravity;
+		}
+		return new Sample(Math.toRadians(-m_gyro.getAngle()), Math.toRadians(-m_gyro.getRate()), accelX, accelY,
+				Timer.getFPGATimestamp());
+	}
+
+	/**
+	 * Returns the most recent gyro sample. Safe to call from any thread.
+	 *
+	 * @return The latest sample
+	 */
+	public Sample getLatestSample() {
+		return m_latestSample;
+	}
+
+	/**
+	 * Returns whether the heading is currently coming from the gyro rather than
+	 * from wheel kinematics.
+	 *
+	 * @return Whether the gyro is being used
+	 */
+	public boolean isUsingGyro() {
+		return m_usingGyro;
+	}
+
+	/**
+	 * Checks whether the gyro data is still fresh and advances the wheel
+	 * kinematics yaw. Should be called once per loop from the main thread.
+	 *
+	 * @param wheelYawDeltaRadians The change in yaw since the last call as
+	 *        measured by the wheels, in radians
+	 */
+	public void update(double wheelYawDeltaRadians) {
+		var sample = m_latestSample;
+		boolean fresh = Timer.getFPGATimestamp() - sample.timestampSeconds() < kGyroStaleTimeout;
+		if (fresh) {
+			if (!m_usingGyro) // Line the gyro back up with the wheel yaw so the heading doesn't jump
+				m_offsetRadians = m_wheelYawRadians - sample.yawRadians();
+			m_usingGyro = true;
+			m_wheelYawRadians = sample.yawRadians() + m_offsetRadians;
+		} else {
+			m_usingGyro = false;
+			m_wheelYawRadians += wheelYawDeltaRadians;
+		}
+	}
+
+	/**
+	 * Returns the robot heading.
+	 *
+	 * @return The heading
+	 */
+	public Rotation2d getHeading() {
+		if (m_usingGyro)
+			return new Rotation2d(m_latestSample.yawRadians() + m_offsetRadians);
+		return new Rotation2d(m_wheelYawRadians);
+	}
+
+	/**
+	 * Returns the robot heading extrapolated with the measured yaw rate to a
+	 * time in the future, accounting for how old the latest sample already is.
+	 * If the gyro has dropped out, the heading isn't extrapolated.
+	 *
+	 * @param lookaheadSeconds How far from now to extrapolate to in seconds
+	 * @return The predicted heading
+	 */
+	public Rotation2d getPredictedHeading(double lookaheadSeconds) {
+		if (!m_usingGyro)
+			return new Rotation2d(m_wheelYawRadians);
+		var sample = m_latestSample;
+		double age = Math.min(Timer.getFPGATimestamp() - sample.timestampSeconds(), kMaxLatencyCompensation);
+		return new Rotation2d(
+				sample.yawRadians() + m_offsetRadians + sample.yawRateRadiansPerSecond() * (age + lookaheadSeconds));
+	}
+
+	/**
+	 * Resets the heading to zero.
+	 */
+	public void reset() {
+		setHeading(0);
+	}
+
+	/**
+	 * Sets the current heading. If the gyro hasn't sent a sample yet, it is
+	 * lined up with this heading once it does.
+	 *
+	 * @param headingRadians The heading in radians
+	 */
+	public void setHeading(double headingRadians) {
+		m_offsetRadians = headingRadians - m_latestSample.yawRadians();
+		m_wheelYawRadians = headingRadians;
+	}
+
+	/**
+	 * Updates the simulated navX yaw.
+	 *
+	 * @param omegaRadiansPerSecond The angular velocity of the robot in radians
+	 *        per second
+	 * @param dtSeconds The time since the last update in seconds
+	 */
+	public void updateSim(double omegaRadiansPerSecond, double dtSeconds) {
+		m_gyroSim.set(-Math.toDegrees(omegaRadiansPerSecond * dtSeconds) + m_gyro.getYaw());
+	}
+}
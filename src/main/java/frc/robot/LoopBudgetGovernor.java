@@ -0,0 +1,124 @@
+package frc.robot;
+
+import static frc.robot.Constants.RobotConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Keeps nonessential work from making the main loop overrun. Work registered
+ * as deferrable only runs after the control outputs have gone out, and only if
+ * its estimated cost still fits in what is left of the cycle. Anything that
+ * doesn't fit is postponed and goes first next cycle. The budget is measured
+ * from when the loop started, so the time spent in the mode periodic method
+ * before {@code robotPeriodic()} counts against it. How often each item is
+ * shed is published under {@code /LoopBudget}.
+ */
+public class LoopBudgetGovernor {
+	private static final class Task {
+		private final Runnable m_runnable;
+		private final IntegerPublisher m_shedPublisher;
+		private final long m_periodNanos;
+		private long m_lastRunNanos = Long.MIN_VALUE;
+		private double m_costEstimateNanos = 0;
+		private int m_postponedCycles = 0;
+		private long m_shedCount = 0;
+
+		private Task(Runnable runnable, IntegerPublisher shedPublisher, long periodNanos) {
+			m_runnable = runnable;
+			m_shedPublisher = shedPublisher;
+			m_periodNanos = periodNanos;
+		}
+	}
+
+	private final long m_budgetNanos;
+	private final List<Task> m_tasks = new ArrayList<>();
+	private final NetworkTable m_table = NetworkTableInstance.getDefault().getTable("LoopBudget");
+	private final DoublePublisher m_remainingBudgetPublisher = m_table.getDoubleTopic("Remaining Budget (ms)")
+			.publish();
+	private long m_cycleStartMicros;
+
+	/**
+	 * Creates a new LoopBudgetGovernor.
+	 *
+	 * @param periodSeconds The loop period in seconds
+	 */
+	public LoopBudgetGovernor(double periodSeconds) {
+		m_budgetNanos = (long) ((periodSeconds - kLoopBudgetReserve) * 1e9);
+		m_cycleStartMicros = RobotController.getFPGATime();
+	}
+
+	/**
+	 * Registers work that can be skipped when the loop is short on time.
+	 *
+	 * @param name The name to publish the shed count under
+	 * @param runnable The work
+	 */
+	public void addDeferrable(String name, Runnable runnable) {
+		addDeferrable(name, runnable, 0);
+	}
+
+	/**
+	 * Registers work that can be skipped when the loop is short on time and only
+	 * needs to run every so often.
+	 *
+	 * @param name The name to publish the shed count under
+	 * @param runnable The work
+	 * @param periodSeconds How often the work should run in seconds
+	 */
+	public void addDeferrable(String name, Runnable runnable, double periodSeconds) {
+		m_tasks.add(new Task(runnable, m_table.getSubTable(name).getIntegerTopic("Shed").publish(),
+				(long) (periodSeconds * 1e9)));
+	}
+
+	/**
+	 * Marks the start of a cycle. Should be called from {@code robotPeriodic()}.
+	 *
+	 * @param loopStartMicros When the loop started, from
+	 *        {@code TimedRobot.getLoopStartTime()}, in microseconds of FPGA time
+	 */
+	public void startCycle(long loopStartMicros) {
+		m_cycleStartMicros = loopStartMicros;
+	}
+
+	private long elapsedNanos() {
+		return (RobotController.getFPGATime() - m_cycleStartMicros) * 1000;
+	}
+
+	/**
+	 * Runs as much of the deferrable work as fits in the rest of the cycle, with
+	 * the work that has been waiting longest first. Should be called after
+	 * everything that sets outputs has run.
+	 */
+	public void runDeferrables() {
+		// Stable, so work that waited equally long keeps its registration order
+		m_tasks.sort((a, b) -> Integer.compare(b.m_postponedCycles, a.m_postponedCycles));
+		for (var task : m_tasks) {
+			if (task.m_lastRunNanos != Long.MIN_VALUE && System.nanoTime() - task.m_lastRunNanos < task.m_periodNanos)
+				continue;
+			long remaining = m_budgetNanos - elapsedNanos();
+			// Work that keeps getting shed runs whenever there is any time left so
+			// one slow run can't keep it from ever updating its estimate
+			boolean starved = task.m_postponedCycles >= kMaxDeferredCycles;
+			if (remaining < task.m_costEstimateNanos && !(starved && remaining > 0)) {
+				task.m_postponedCycles++;
+				task.m_shedCount++;
+				task.m_shedPublisher.set(task.m_shedCount);
+				continue;
+			}
+			long start = System.nanoTime();
+			task.m_lastRunNanos = start;
+			task.m_runnable.run();
+			long cost = System.nanoTime() - start;
+			task.m_costEstimateNanos += kTaskCostSmoothing * (cost - task.m_costEstimateNanos);
+			task.m_postponedCycles = 0;
+		}
+		m_remainingBudgetPublisher.set((m_budgetNanos - elapsedNanos()) / 1e6);
+	}
+}
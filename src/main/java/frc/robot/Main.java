@@ -4,13 +4,99 @@
 
 package frc.robot;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import edu.wpi.first.wpilibj.RobotBase;
 
 public final class Main {
+	// Entry points into the libraries the robot code boots with, loaded (but not
+	// initialized) up front. Most of their dependencies are still loaded later,
+	// so the number of classes each boot phase loads is reported alongside its
+	// time.
+	private static final String[] kBootClasses = { "edu.wpi.first.hal.HAL",
+			"edu.wpi.first.networktables.NetworkTableInstance", "edu.wpi.first.wpilibj2.command.CommandScheduler",
+			"edu.wpi.first.math.kinematics.SwerveDriveKinematics", "com.ctre.phoenix6.hardware.TalonFX",
+			"com.ctre.phoenix6.hardware.CANcoder", "com.studica.frc.AHRS", "frc.robot.Robot",
+			"frc.robot.subsystems.DriveSubsystem" };
+
 	private Main() {
 	}
 
 	public static void main(String... args) {
+		BootTracer.markJvmStarted();
+		BootTracer.begin("Boot class preload");
+		for (String name : kBootClasses) {
+			try {
+				Class.forName(name, false, Main.class.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				System.err.println("Boot class not found: " + name);
+			}
+		}
+		BootTracer.end("Boot class preload");
+		startCdsTrainingTimer();
 		RobotBase.startRobot(Robot::new);
 	}
+
+	/**
+	 * If {@code robot.cdsTrainingSeconds} is set, exits after that many seconds so
+	 * the JVM writes its class-data-sharing archive (see {@code build.gradle}).
+	 * Next to the archive in {@code robot.cdsArchive}, a stamp file records the
+	 * size and modification time of the jar it was trained on. Training is
+	 * skipped if the stamp matches the running jar, so the robot doesn't keep
+	 * restarting after the first training run, but a newly deployed jar always
+	 * retrains.
+	 */
+	private static void startCdsTrainingTimer() {
+		long trainingSeconds = Long.getLong("robot.cdsTrainingSeconds", 0);
+		if (trainingSeconds <= 0)
+			return;
+		String archive = System.getProperty("robot.cdsArchive");
+		Path stampFile = archive != null ? Path.of(archive + ".stamp") : null;
+		String stamp = jarStamp();
+		try {
+			if (stampFile != null && stamp != null && Files.exists(stampFile)
+					&& Files.readString(stampFile).equals(stamp))
+				return;
+		} catch (IOException e) {
+			System.err.println("Failed to read " + stampFile + ": " + e.getMessage());
+		}
+		var timer = new Thread(() -> {
+			try {
+				Thread.sleep(trainingSeconds * 1000);
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (stampFile != null && stamp != null) {
+				try {
+					Files.writeString(stampFile, stamp);
+				} catch (IOException e) {
+					System.err.println("Failed to write " + stampFile + ": " + e.getMessage());
+				}
+			}
+			System.out.println("CDS training run finished, exiting to write the archive");
+			System.exit(0);
+		}, "CDS training timer");
+		timer.setDaemon(true);
+		timer.start();
+	}
+
+	/**
+	 * Identifies the jar the robot code is running from.
+	 *
+	 * @return The jar's size and modification time, or null if the code isn't
+	 *         running from a jar
+	 */
+	private static String jarStamp() {
+		try {
+			var jar = Path.of(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+			if (!Files.isRegularFile(jar))
+				return null;
+			return Files.size(jar) + " " + Files.getLastModifiedTime(jar).toMillis();
+		} catch (IOException | URISyntaxException | SecurityException e) {
+			return null;
+		}
+	}
 }
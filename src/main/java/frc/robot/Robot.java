@@ -4,6 +4,9 @@
 
 package frc.robot;
 
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -16,12 +19,27 @@ public class Robot extends TimedRobot {
 	private Command m_autonomousCommand;
 	private CommandScheduler m_scheduler = CommandScheduler.getInstance();
 
-	private final DriveSubsystem m_driveSubsystem = new DriveSubsystem();
+	private final TuningRegistry m_tuningRegistry = new TuningRegistry();
+	private final DriveSubsystem m_driveSubsystem = new DriveSubsystem(m_tuningRegistry);
 	private final SendableChooser<Command> m_autoChooser = new SendableChooser<Command>();
 	private final CommandPS5Controller m_joystick = new CommandPS5Controller(
 			Constants.ControllerConstants.kDriverControllerPort);
+	private final ThreadManager.RegisteredThread m_mainThread;
+	private final LoopBudgetGovernor m_loopBudgetGovernor = new LoopBudgetGovernor(getPeriod());
+	// Keeps duplicates so every loop is logged, even when two take exactly as
+	// long; log-analytics measures loop times from it
+	private final DoublePublisher m_loopTimePublisher = NetworkTableInstance.getDefault()
+			.getDoubleTopic("/Robot/Loop Time (ms)").publish(PubSubOption.keepDuplicates(true));
+	private long m_lastLoopStartMicros = -1;
+	private boolean m_booted = false;
 
 	public Robot() {
+		m_mainThread = ThreadManager.register("Main", ThreadManager.PriorityClass.kControl, getPeriod());
+		addPeriodic(m_driveSubsystem::allocateCurrentBudget, Constants.DriveConstants.kCurrentBudgetPeriod);
+		m_loopBudgetGovernor.addDeferrable("Drive Telemetry", m_driveSubsystem::publishTelemetry);
+		m_loopBudgetGovernor.addDeferrable("Thread Stats", ThreadManager::publish,
+				Constants.RobotConstants.kThreadStatsPeriod);
+		SmartDashboard.putData(m_scheduler);
 		BindDriveControls();
 	}
 
@@ -34,9 +52,22 @@ public class Robot extends TimedRobot {
 
 	@Override
 	public void robotPeriodic() {
+		long loopStartMicros = getLoopStartTime();
+		m_loopBudgetGovernor.startCycle(loopStartMicros);
+		m_mainThread.tick();
+		if (m_lastLoopStartMicros >= 0)
+			m_loopTimePublisher.set((loopStartMicros - m_lastLoopStartMicros) / 1e3);
+		m_lastLoopStartMicros = loopStartMicros;
+		if (!m_booted)
+			BootTracer.begin("First robotPeriodic");
 		m_scheduler.run();
 
-		SmartDashboard.putData(m_scheduler);
+		m_loopBudgetGovernor.runDeferrables();
+		if (!m_booted) {
+			BootTracer.end("First robotPeriodic");
+			BootTracer.report();
+			m_booted = true;
+		}
 	}
 
 	@Override
@@ -6,29 +6,47 @@ package frc.robot;
 
 import static frc.robot.Constants.DriveConstants.*;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.ClosedLoopRampsConfigs;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.OpenLoopRampsConfigs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
-import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.units.measure.Angle;
+import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.drivecore.ContinuousPIDController;
 import frc.robot.Constants.DriveConstants;
 
 /**
  * Contains all the hardware and controllers for a swerve module.
  */
 public class SwerveModule {
-	private final PIDController m_steerController = new PIDController(kP, kI, kD);
+	private final ContinuousPIDController m_steerController = new ContinuousPIDController(kP, kI, kD, 0, 360,
+			TimedRobot.kDefaultPeriod);
+	// Gains from the TuningRegistry waiting to be applied on the main thread
+	private final AtomicReference<double[]> m_pendingSteerGains = new AtomicReference<>();
 	private final CANcoder m_CANCoder;
+	private final StatusSignal<Angle> m_absolutePosition;
+	private final StatusSignal<AngularVelocity> m_angularVelocity;
+	private double m_angleLatency = 0;
 	private final TalonFX m_driveMotor;
 	private final TalonFX m_steerMotor;
+	private final CurrentLimitsConfigs m_driveCurrentLimits = new CurrentLimitsConfigs();
 
 	// private final SparkFlexSim m_steerMotorSim;
 	private final DCMotorSim m_driveMotorModel;
@@ -36,14 +54,21 @@ public class SwerveModule {
 
 	public SwerveModule(int canId, int drivePort, int steerPort) {
 		m_CANCoder = new CANcoder(canId);
+		m_absolutePosition = m_CANCoder.getAbsolutePosition();
+		m_angularVelocity = m_CANCoder.getVelocity();
 		m_driveMotor = new TalonFX(drivePort);
 		m_steerMotor = new TalonFX(steerPort);
+		BootTracer.begin("Device config");
 		// m_steerMotorSim = new SparkFlexSim(m_steerMotor, DCMotor.getNEO(1));
 		m_driveMotor.getConfigurator().apply(DriveConstants.kDriveConfig);
 		// Helps with encoder precision (not set in stone)
 		// config.encoder.uvwAverageDepth(kEncoderDepth).uvwMeasurementPeriod(kEncoderMeasurementPeriod);
 		m_steerMotor.getConfigurator().apply(DriveConstants.kSteerConfig);
-		m_steerController.enableContinuousInput(0, 360);
+		copyCurrentLimits(DriveConstants.kDriveConfig.CurrentLimits, m_driveCurrentLimits);
+		// The current budget allocator needs fresh supply current readings
+		BaseStatusSignal.setUpdateFrequencyForAll(1 / kCurrentBudgetPeriod, m_driveMotor.getSupplyCurrent(),
+				m_steerMotor.getSupplyCurrent());
+		BootTracer.end("Device config");
 		if (RobotBase.isSimulation()) {
 			m_driveMotorModel = new DCMotorSim(
 					LinearSystemId.createDCMotorSystem(kV / (2 * Math.PI), kA / (2 * Math.PI)),
@@ -57,12 +82,45 @@ public class SwerveModule {
 		}
 	}
 
+	private static void copyCurrentLimits(CurrentLimitsConfigs from, CurrentLimitsConfigs to) {
+		to.StatorCurrentLimit = from.StatorCurrentLimit;
+		to.StatorCurrentLimitEnable = from.StatorCurrentLimitEnable;
+		to.SupplyCurrentLimit = from.SupplyCurrentLimit;
+		to.SupplyCurrentLowerLimit = from.SupplyCurrentLowerLimit;
+		to.SupplyCurrentLowerTime = from.SupplyCurrentLowerTime;
+		to.SupplyCurrentLimitEnable = from.SupplyCurrentLimitEnable;
+	}
+
 	public void setNeutralMode(NeutralModeValue neutralMode) {
 		var config = new TalonFXConfiguration();
 		config.MotorOutput.NeutralMode = neutralMode;
 		m_driveMotor.getConfigurator().apply(config);
 	}
 
+	/**
+	 * Queues new steer PID gains. They are applied all at once the next time
+	 * {@link #setModuleState} runs, so this is safe to call from any thread.
+	 * 
+	 * @param gains The P, I, and D gains
+	 */
+	public void setSteerGains(double[] gains) {
+		m_pendingSteerGains.set(gains);
+	}
+
+	/**
+	 * Sets the voltage ramp period of the drive and steer motors.
+	 * 
+	 * @param rampRate The time to go from 0 to full power in seconds
+	 */
+	public void setRampRate(double rampRate) {
+		var openLoopRamps = new OpenLoopRampsConfigs().withVoltageOpenLoopRampPeriod(rampRate);
+		var closedLoopRamps = new ClosedLoopRampsConfigs().withVoltageClosedLoopRampPeriod(rampRate);
+		m_driveMotor.getConfigurator().apply(openLoopRamps);
+		m_driveMotor.getConfigurator().apply(closedLoopRamps);
+		m_steerMotor.getConfigurator().apply(openLoopRamps);
+		m_steerMotor.getConfigurator().apply(closedLoopRamps);
+	}
+
 	/**
 	 * Returns drive encoder distance in meters traveled.
 	 * 
@@ -72,6 +130,15 @@ public class SwerveModule {
 		return m_driveMotor.getPosition().getValueAsDouble() * kMetersPerMotorRotation;
 	}
 
+	/**
+	 * Returns drive wheel speed in meters per second.
+	 * 
+	 * @return The speed in meters per second
+	 */
+	public double getDriveVelocity() {
+		return m_driveMotor.getVelocity().getValueAsDouble() * kMetersPerMotorRotation;
+	}
+
 	/**
 	 * Returns the current of the steer motor
 	 * 
@@ -90,6 +157,36 @@ public class SwerveModule {
 		return m_driveMotor.getStatorCurrent().getValueAsDouble();
 	}
 
+	/**
+	 * Returns the supply current of the drive motor.
+	 * 
+	 * @return The current in amps
+	 */
+	public double getDriveSupplyCurrent() {
+		return m_driveMotor.getSupplyCurrent().getValueAsDouble();
+	}
+
+	/**
+	 * Returns the supply current of the steer motor.
+	 * 
+	 * @return The current in amps
+	 */
+	public double getSteerSupplyCurrent() {
+		return m_steerMotor.getSupplyCurrent().getValueAsDouble();
+	}
+
+	/**
+	 * Sets the supply current limit of the drive motor. The new limit is sent
+	 * without waiting for the motor to acknowledge it.
+	 * 
+	 * @param limit The supply current limit in amps
+	 */
+	public void setDriveSupplyCurrentLimit(double limit) {
+		m_driveCurrentLimits.SupplyCurrentLimit = limit;
+		m_driveCurrentLimits.SupplyCurrentLowerLimit = limit;
+		m_driveMotor.getConfigurator().apply(m_driveCurrentLimits, 0);
+	}
+
 	/**
 	 * Resets drive encoder to zero.
 	 */
@@ -124,6 +221,29 @@ public class SwerveModule {
 		return m_CANCoder.getAbsolutePosition().getValueAsDouble() * 360;
 	}
 
+	/**
+	 * Returns the module angle extrapolated to when a command sent now would take
+	 * effect, using the CANcoder velocity and how old the reading is.
+	 * 
+	 * @return The predicted module angle in degrees
+	 */
+	public double getPredictedModuleAngle() {
+		BaseStatusSignal.refreshAll(m_absolutePosition, m_angularVelocity);
+		m_angleLatency = m_absolutePosition.getTimestamp().getLatency();
+		double lookahead = Math.min(m_angleLatency, kMaxLatencyCompensation) + kActuationLatency;
+		return (m_absolutePosition.getValueAsDouble() + m_angularVelocity.getValueAsDouble() * lookahead) * 360;
+	}
+
+	/**
+	 * Returns how old the module angle reading was the last time it was
+	 * extrapolated.
+	 * 
+	 * @return The latency in seconds
+	 */
+	public double getModuleAngleLatency() {
+		return m_angleLatency;
+	}
+
 	/**
 	 * Returns the module position.
 	 * 
@@ -149,8 +269,11 @@ public class SwerveModule {
 	 *        been repurposed to contain volts, not velocity.
 	 */
 	public void setModuleState(SwerveModuleState state) {
+		double[] gains = m_pendingSteerGains.getAndSet(null);
+		if (gains != null)
+			m_steerController.setPID(gains[0], gains[1], gains[2]);
 		m_driveMotor.setVoltage(state.speedMetersPerSecond);
-		double turnPower = m_steerController.calculate(getModuleAngle(), state.angle.getDegrees());
+		double turnPower = m_steerController.calculate(getPredictedModuleAngle(), state.angle.getDegrees());
 		m_steerMotor.setVoltage(turnPower);
 		updateSim();
 	}
@@ -158,6 +281,7 @@ public class SwerveModule {
 	private void updateSim() {
 		if (RobotBase.isSimulation()) {
 			var driveMotorState = m_driveMotor.getSimState();
+			driveMotorState.setSupplyVoltage(RobotController.getBatteryVoltage());
 			m_driveMotorModel.setInputVoltage(driveMotorState.getMotorVoltage());
 			m_driveMotorModel.update(0.02);
 			driveMotorState.setRotorVelocity(m_driveMotorModel.getAngularVelocityRPM() / 60);
@@ -165,6 +289,7 @@ public class SwerveModule {
 
 			var encoderSimState = m_CANCoder.getSimState();
 			var steerMotorState = m_steerMotor.getSimState();
+			steerMotorState.setSupplyVoltage(RobotController.getBatteryVoltage());
 			m_steerMotorModel.setInputVoltage(steerMotorState.getMotorVoltage());
 			m_steerMotorModel.update(0.02);
 			encoderSimState.setRawPosition(m_steerMotorModel.getAngularPositionRotations() / kSteerGearRatio);
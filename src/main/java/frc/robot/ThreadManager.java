@@ -0,0 +1,129 @@
+package frc.robot;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.Threads;
+
+/**
+ * Keeps track of the threads the robot code owns. Each thread registers itself
+ * with a {@link PriorityClass}, which decides whether it runs with real-time
+ * priority, and calls {@link RegisteredThread#tick()} every time it wakes up so
+ * its scheduling jitter can be measured. {@link #publish()} puts each thread's
+ * CPU time and jitter histogram under {@code /Threads} in NetworkTables.
+ */
+public final class ThreadManager {
+	/**
+	 * How important a thread is to getting control outputs out on time.
+	 */
+	public enum PriorityClass {
+		/** The main loop. */
+		kControl(true, 15),
+		/** Threads reading sensors the main loop depends on. */
+		kSensor(true, 10),
+		/** Threads writing files or talking to the network. */
+		kIO(false, 0),
+		/** Telemetry and analysis that can fall behind. */
+		kAnalytics(false, 0);
+
+		private final boolean m_realTime;
+		private final int m_priority;
+
+		PriorityClass(boolean realTime, int priority) {
+			m_realTime = realTime;
+			m_priority = priority;
+		}
+	}
+
+	// Upper edges of the jitter histogram buckets in milliseconds; the last
+	// bucket counts everything past the last edge
+	private static final double[] kJitterBucketEdges = { 0.1, 0.25, 0.5, 1, 2, 5, 10 };
+
+	/**
+	 * A thread registered with the {@link ThreadManager}.
+	 */
+	public static final class RegisteredThread {
+		private final long m_threadId;
+		private final double m_expectedPeriodMs;
+		private final AtomicLongArray m_jitterCounts = new AtomicLongArray(kJitterBucketEdges.length + 1);
+		private final DoublePublisher m_cpuTimePublisher;
+		private final DoubleArrayPublisher m_jitterPublisher;
+		private final double[] m_jitterHistogram = new double[kJitterBucketEdges.length + 1];
+		// Only used by the registered thread
+		private long m_lastTickNanos = 0;
+
+		private RegisteredThread(String name, double expectedPeriodSeconds) {
+			m_threadId = Thread.currentThread().getId();
+			m_expectedPeriodMs = expectedPeriodSeconds * 1000;
+			var table = NetworkTableInstance.getDefault().getTable("Threads").getSubTable(name);
+			m_cpuTimePublisher = table.getDoubleTopic("CPU Time (ms)").publish();
+			m_jitterPublisher = table.getDoubleArrayTopic("Jitter Histogram").publish();
+		}
+
+		/**
+		 * Records that the thread woke up. Should be called once per period from
+		 * the registered thread.
+		 */
+		public void tick() {
+			long now = System.nanoTime();
+			if (m_lastTickNanos != 0) {
+				double jitterMs = Math.abs((now - m_lastTickNanos) / 1e6 - m_expectedPeriodMs);
+				int bucket = 0;
+				while (bucket < kJitterBucketEdges.length && jitterMs > kJitterBucketEdges[bucket])
+					bucket++;
+				m_jitterCounts.incrementAndGet(bucket);
+			}
+			m_lastTickNanos = now;
+		}
+	}
+
+	private static final List<RegisteredThread> s_threads = new CopyOnWriteArrayList<>();
+	private static final ThreadMXBean s_threadBean = ManagementFactory.getThreadMXBean();
+	private static final DoubleArrayPublisher s_bucketEdgesPublisher = NetworkTableInstance.getDefault()
+			.getTable("Threads").getDoubleArrayTopic("Jitter Bucket Edges (ms)").publish();
+
+	private ThreadManager() {
+	}
+
+	/**
+	 * Registers the current thread and applies the priority of its class.
+	 *
+	 * @param name The name to publish the thread's statistics under
+	 * @param priorityClass The priority class of the thread
+	 * @param expectedPeriodSeconds How often the thread is supposed to wake up
+	 *        in seconds
+	 * @return The registered thread, to call {@link RegisteredThread#tick()} on
+	 */
+	public static RegisteredThread register(String name, PriorityClass priorityClass, double expectedPeriodSeconds) {
+		if (!Threads.setCurrentThreadPriority(priorityClass.m_realTime, priorityClass.m_priority)
+				&& RobotBase.isReal()) {
+			DriverStation.reportWarning("Failed to set the priority of thread " + name, false);
+		}
+		var thread = new RegisteredThread(name, expectedPeriodSeconds);
+		s_threads.add(thread);
+		s_bucketEdgesPublisher.set(kJitterBucketEdges);
+		return thread;
+	}
+
+	/**
+	 * Publishes the CPU time and jitter histogram of every registered thread.
+	 */
+	public static void publish() {
+		for (var thread : s_threads) {
+			long cpuNanos = s_threadBean.getThreadCpuTime(thread.m_threadId);
+			if (cpuNanos >= 0) // -1 if the thread has died
+				thread.m_cpuTimePublisher.set(cpuNanos / 1e6);
+			for (int i = 0; i < thread.m_jitterHistogram.length; i++)
+				thread.m_jitterHistogram[i] = thread.m_jitterCounts.get(i);
+			thread.m_jitterPublisher.set(thread.m_jitterHistogram);
+		}
+	}
+}
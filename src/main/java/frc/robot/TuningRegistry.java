@@ -0,0 +1,131 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Exposes tuning parameters under {@code /Tuning} in NetworkTables so they can
+ * be changed without redeploying. Parameters are registered in groups (e.g. the
+ * P, I, and D of one controller), and whenever one of them is changed from a
+ * dashboard, the whole group is handed to its applier at once from the
+ * NetworkTables listener thread. Tuned values are saved to
+ * {@code tuning.properties} in the deploy directory and loaded at boot, falling
+ * back to the defaults in {@link Constants}. Values are only saved on the
+ * robot: in simulation the deploy directory is {@code src/main/deploy}, and a
+ * file saved there would be deployed over the robot's tuned values.
+ */
+public class TuningRegistry {
+	private final File m_file = new File(Filesystem.getDeployDirectory(), "tuning.properties");
+	private final Properties m_values = new Properties();
+	private final NetworkTable m_table = NetworkTableInstance.getDefault().getTable("Tuning");
+
+	/** Creates a new TuningRegistry and loads the saved values. */
+	public TuningRegistry() {
+		if (m_file.exists()) {
+			try (var in = new FileInputStream(m_file)) {
+				m_values.load(in);
+			} catch (IOException e) {
+				DriverStation.reportError("Failed to load " + m_file + ": " + e.getMessage(), false);
+			}
+		}
+	}
+
+	/**
+	 * Registers a group of parameters. If any saved value differs from its
+	 * default, the applier is called right away with the saved values, since the
+	 * defaults are assumed to be in effect already. It is called again with all
+	 * of the group's values whenever any of them changes. Those calls run on the
+	 * NetworkTables listener thread, so appliers should only hand the values off
+	 * to the thread that uses them.
+	 *
+	 * @param group The name of the group, e.g. {@code "Steer"}
+	 * @param names The names of the parameters in the group
+	 * @param defaults The default values of the parameters
+	 * @param applier Receives the values of the group, in the same order as
+	 *        {@code names}
+	 */
+	public void register(String group, String[] names, double[] defaults, Consumer<double[]> applier) {
+		var entries = new DoubleEntry[names.length];
+		var values = new double[names.length];
+		boolean changed = false;
+		for (int i = 0; i < names.length; i++) {
+			String key = group + "/" + names[i];
+			values[i] = loadValue(key, defaults[i]);
+			changed |= values[i] != defaults[i];
+			entries[i] = m_table.getDoubleTopic(key).getEntry(values[i]);
+			entries[i].set(values[i]);
+		}
+		// Appliers can be slow (e.g. pushing configs to motors), so don't slow
+		// down boot reapplying the defaults
+		if (changed)
+			applier.accept(values);
+		for (var entry : entries) {
+			NetworkTableInstance.getDefault().addListener(entry, EnumSet.of(NetworkTableEvent.Kind.kValueRemote),
+					event -> onChange(group, names, entries, applier));
+		}
+	}
+
+	/**
+	 * Returns a saved value, or the default if it isn't saved or can't be read.
+	 *
+	 * @param key The key of the value
+	 * @param defaultValue The default value
+	 * @return The value
+	 */
+	private double loadValue(String key, double defaultValue) {
+		String saved = m_values.getProperty(key);
+		if (saved == null)
+			return defaultValue;
+		try {
+			return Double.parseDouble(saved);
+		} catch (NumberFormatException e) {
+			DriverStation.reportError("Invalid value for " + key + " in " + m_file + ": \"" + saved
+					+ "\", using the default", false);
+			return defaultValue;
+		}
+	}
+
+	private void onChange(String group, String[] names, DoubleEntry[] entries, Consumer<double[]> applier) {
+		var values = new double[entries.length];
+		for (int i = 0; i < entries.length; i++) {
+			values[i] = entries[i].get();
+			m_values.setProperty(group + "/" + names[i], Double.toString(values[i]));
+		}
+		applier.accept(values);
+		if (RobotBase.isReal())
+			save();
+	}
+
+	/**
+	 * Saves the values to a temporary file and moves it over the real one, so
+	 * losing power partway through never leaves a partial file behind.
+	 */
+	private synchronized void save() {
+		var temp = new File(m_file.getPath() + ".tmp");
+		try {
+			try (var out = new FileOutputStream(temp)) {
+				m_values.store(out, "Tuned values, loaded at boot by TuningRegistry");
+				out.getFD().sync();
+			}
+			Files.move(temp.toPath(), m_file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			DriverStation.reportError("Failed to save " + m_file + ": " + e.getMessage(), false);
+		}
+	}
+}
@@ -9,37 +9,48 @@ import static edu.wpi.first.wpilibj2.command.Commands.*;
 import static frc.robot.Constants.DriveConstants.*;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleSupplier;
 
 import com.ctre.phoenix6.signals.NeutralModeValue;
-import com.studica.frc.AHRS;
-import com.studica.frc.AHRS.NavXComType;
 
-import edu.wpi.first.hal.SimDouble;
-import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.networktables.BooleanArrayPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StructArrayPublisher;
 import edu.wpi.first.networktables.StructPublisher;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
+import frc.drivecore.ContinuousPIDController;
+import frc.drivecore.InputShaping;
+import frc.drivecore.SwerveKinematics;
+import frc.drivecore.WheelSlipDetector;
+import frc.robot.BootTracer;
 import frc.robot.Constants.ControllerConstants;
+import frc.robot.CurrentBudgetAllocator;
+import frc.robot.DriveStateStore;
+import frc.robot.GyroService;
 import frc.robot.SwerveModule;
+import frc.robot.TuningRegistry;
 
 public class DriveSubsystem extends SubsystemBase {
 	private final SwerveModule m_frontLeft;
@@ -49,9 +60,34 @@ public class DriveSubsystem extends SubsystemBase {
 
 	private final SwerveDriveKinematics m_kinematics = new SwerveDriveKinematics(
 			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
+	private final SwerveKinematics m_swerveKinematics = new SwerveKinematics(kModuleX, kModuleY);
+	// Preallocated for SwerveKinematics, which works on arrays
+	private final double[] m_chassisSpeeds = new double[3];
+	private final double[] m_measuredChassisSpeeds = new double[3];
+	private final double[] m_targetSpeeds = new double[4];
+	private final double[] m_targetAngles = new double[4];
+	private final double[] m_predictedModuleAngles = new double[4];
 	private final SwerveDriveOdometry m_odometry;
-	private final AHRS m_gyro = new AHRS(NavXComType.kUSB1);
-	private final SimDouble m_gyroSim;
+	private final GyroService m_gyroService = new GyroService();
+	private final DriveStateStore m_driveStateStore = new DriveStateStore();
+	private SwerveModulePosition[] m_previousModulePositions;
+	// The module positions fed to odometry, with slipping modules' distances
+	// replaced by what the other modules say they should have been
+	private final SwerveModulePosition[] m_odometryPositions = new SwerveModulePosition[4];
+	private final WheelSlipDetector m_slipDetector = new WheelSlipDetector(kModuleX, kModuleY, kSlipSpeedThreshold,
+			kSlipAccelThreshold, kCollisionAccelThreshold);
+	private final double[] m_wheelSpeeds = new double[4];
+	private final double[] m_moduleAngles = new double[4];
+	private final boolean[] m_slippingModules = new boolean[4];
+	private double m_lastPeriodicTime;
+	private double m_loopPeriod = TimedRobot.kDefaultPeriod;
+	private Pose2d m_predictedPose = new Pose2d();
+	private final double[] m_moduleAngleLatencies = new double[4];
+	// Kept for publishTelemetry()
+	private SwerveModuleState[] m_currentModuleStates;
+	private ChassisSpeeds m_currentChassisSpeeds;
+	private SwerveModuleState[] m_targetModuleStates;
+	private Rotation2d m_targetHeading;
 	// https://docs.wpilib.org/en/latest/docs/software/advanced-controls/system-identification/index.html
 	private final SysIdRoutine m_sysidRoutine;
 
@@ -60,13 +96,25 @@ public class DriveSubsystem extends SubsystemBase {
 	private final StructArrayPublisher<SwerveModuleState> m_targetModuleStatePublisher;
 	private final StructArrayPublisher<SwerveModuleState> m_currentModuleStatePublisher;
 	private final StructPublisher<Rotation2d> m_targetHeadingPublisher;
-
-	private final PIDController m_orientationController = new PIDController(kRotationP, kRotationI, kRotationD);
+	private final BooleanArrayPublisher m_slippingModulesPublisher;
+	private final StructPublisher<Pose2d> m_predictedPosePublisher;
+	private final DoubleArrayPublisher m_moduleAngleLatenciesPublisher;
+
+	private final ContinuousPIDController m_orientationController = new ContinuousPIDController(kRotationP,
+			kRotationI, kRotationD, -Math.PI, Math.PI, TimedRobot.kDefaultPeriod);
+	// Gains from the TuningRegistry waiting to be applied on the main thread
+	private final AtomicReference<double[]> m_pendingRotationGains = new AtomicReference<>();
 	private AtomicBoolean shouldBeCoast = new AtomicBoolean(true);
+	private final CurrentBudgetAllocator m_currentBudgetAllocator = new CurrentBudgetAllocator();
+	private double m_totalSupplyCurrent = 0;
 
-	/** Creates a new DriveSubsystem. */
-	public DriveSubsystem() {
-		m_orientationController.enableContinuousInput(-Math.PI, Math.PI);
+	/**
+	 * Creates a new DriveSubsystem.
+	 * 
+	 * @param tuningRegistry The registry to expose the drive gains through
+	 */
+	public DriveSubsystem(TuningRegistry tuningRegistry) {
+		BootTracer.begin("DriveSubsystem constructor");
 		m_posePublisher = NetworkTableInstance.getDefault().getStructTopic("/SmartDashboard/Pose", Pose2d.struct)
 				.publish();
 		m_currentChassisSpeedsPublisher = NetworkTableInstance.getDefault()
@@ -81,10 +129,33 @@ public class DriveSubsystem extends SubsystemBase {
 		m_targetHeadingPublisher = NetworkTableInstance.getDefault()
 				.getStructTopic("/SmartDashboard/Target Heading", Rotation2d.struct)
 				.publish();
+		m_slippingModulesPublisher = NetworkTableInstance.getDefault()
+				.getBooleanArrayTopic("/SmartDashboard/Slipping Modules")
+				.publish();
+		m_predictedPosePublisher = NetworkTableInstance.getDefault()
+				.getStructTopic("/SmartDashboard/Predicted Pose", Pose2d.struct)
+				.publish();
+		m_moduleAngleLatenciesPublisher = NetworkTableInstance.getDefault()
+				.getDoubleArrayTopic("/SmartDashboard/Module Angle Latencies (ms)")
+				.publish();
 		m_frontLeft = new SwerveModule(kFrontLeftCANCoderPort, kFrontLeftDrivePort, kFrontLeftSteerPort);
 		m_frontRight = new SwerveModule(kFrontRightCANCoderPort, kFrontRightDrivePort, kFrontRightSteerPort);
 		m_backLeft = new SwerveModule(kBackLeftCANCoderPort, kBackLeftDrivePort, kBackLeftSteerPort);
 		m_backRight = new SwerveModule(kBackRightCANCoderPort, kBackRightDrivePort, kBackRightSteerPort);
+		tuningRegistry.register("Steer", new String[] { "kP", "kI", "kD" }, new double[] { kP, kI, kD }, gains -> {
+			m_frontLeft.setSteerGains(gains);
+			m_frontRight.setSteerGains(gains);
+			m_backLeft.setSteerGains(gains);
+			m_backRight.setSteerGains(gains);
+		});
+		tuningRegistry.register("Rotation", new String[] { "kRotationP", "kRotationI", "kRotationD" },
+				new double[] { kRotationP, kRotationI, kRotationD }, m_pendingRotationGains::set);
+		tuningRegistry.register("Ramps", new String[] { "kRampRate" }, new double[] { kRampRate }, values -> {
+			m_frontLeft.setRampRate(values[0]);
+			m_frontRight.setRampRate(values[0]);
+			m_backLeft.setRampRate(values[0]);
+			m_backRight.setRampRate(values[0]);
+		});
 		// Adjust ramp rate, step voltage, and timeout to make sure robot doesn't
 		// collide with anything
 		var config = new SysIdRoutine.Config(Volts.of(2.5).div(Seconds.of(1)), null, Seconds.of(3));
@@ -95,29 +166,40 @@ public class DriveSubsystem extends SubsystemBase {
 			m_backLeft.setModuleState(state);
 			m_backRight.setModuleState(state);
 		}, null, this));
-		m_gyro.zeroYaw();
-		resetEncoders();
-		// Wait 100 milliseconds to let all the encoders reset
-		try {
-			Thread.sleep(100);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		// If the code restarted mid-match, pick up from the last pose instead of
+		// starting over at the origin
+		var restoredState = m_driveStateStore.restore();
+		// The encoders only need to be reset if the motors lost their positions too
+		if (restoredState == null || !encodersMatch(restoredState.encoderDistances())) {
+			resetEncoders();
+			// Wait 100 milliseconds to let all the encoders reset
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
 		}
-		m_odometry = new SwerveDriveOdometry(m_kinematics, getHeading(), getModulePositions());
-		if (RobotBase.isSimulation()) {
-			m_gyroSim = new SimDeviceSim("navX-Sensor", m_gyro.getPort()).getDouble("Yaw");
-		} else {
-			m_gyroSim = null;
+		var pose = new Pose2d();
+		if (restoredState != null) {
+			m_gyroService.setHeading(restoredState.headingRadians());
+			pose = restoredState.pose();
 		}
+		m_previousModulePositions = getModulePositions();
+		for (int i = 0; i < m_odometryPositions.length; i++)
+			m_odometryPositions[i] = m_previousModulePositions[i].copy();
+		m_lastPeriodicTime = Timer.getFPGATimestamp();
+		m_odometry = new SwerveDriveOdometry(m_kinematics, getHeading(), m_odometryPositions, pose);
+		BootTracer.end("DriveSubsystem constructor");
 	}
 
 	/**
-	 * Gets the robot's heading from the gyro.
+	 * Gets the robot's heading from the gyro, or from wheel kinematics if the
+	 * gyro has dropped out.
 	 * 
 	 * @return The heading
 	 */
 	public Rotation2d getHeading() {
-		return m_gyro.getRotation2d();
+		return m_gyroService.getHeading();
 	}
 
 	/**
@@ -130,6 +212,23 @@ public class DriveSubsystem extends SubsystemBase {
 		m_backRight.resetDriveEncoder();
 	}
 
+	/**
+	 * Checks whether the drive encoders still read what they did before the code
+	 * restarted.
+	 * 
+	 * @param encoderDistances The restored encoder distances, in order of FL, FR,
+	 *        BL, BR
+	 * @return Whether every encoder is within {@code kEncoderRestoreTolerance}
+	 */
+	private boolean encodersMatch(double[] encoderDistances) {
+		var modulePositions = getModulePositions();
+		for (int i = 0; i < modulePositions.length; i++) {
+			if (Math.abs(modulePositions[i].distanceMeters - encoderDistances[i]) > kEncoderRestoreTolerance)
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Returns the {@code SwerveDriveKinematics} used by this
 	 * {@code DriveSubsystem}.
@@ -160,22 +259,36 @@ public class DriveSubsystem extends SubsystemBase {
 	}
 
 	/**
-	 * Calculates module states from a chassis speeds.
+	 * Calculates module states from a chassis speeds. The heading and module
+	 * angles are extrapolated to when the states will take effect, since the
+	 * sensor readings are already old and the robot keeps moving until then.
 	 * 
 	 * @param speeds The chassis speeds.
 	 * @param isFieldRelative Whether or not the chassis speeds is field relative.
 	 * @return The module states, in order of FL, FR, BL, BR
 	 */
 	private SwerveModuleState[] calculateModuleStates(ChassisSpeeds speeds, boolean isFieldRelative) {
-		if (isFieldRelative)
-			speeds = ChassisSpeeds.fromFieldRelativeSpeeds(speeds, getHeading());
-		speeds = ChassisSpeeds.discretize(speeds, 0.03);
-		SwerveModuleState[] states = m_kinematics.toSwerveModuleStates(speeds);
-		SwerveDriveKinematics.desaturateWheelSpeeds(states, kTeleopDriveMaxSpeed);
-		double[] moduleAngles = { m_frontLeft.getModuleAngle(), m_frontRight.getModuleAngle(),
-				m_backLeft.getModuleAngle(), m_backRight.getModuleAngle() };
-		for (int i = 0; i < states.length; i++) // Optimize target module states
-			states[i].optimize(Rotation2d.fromDegrees(moduleAngles[i]));
+		double vx = speeds.vxMetersPerSecond;
+		double vy = speeds.vyMetersPerSecond;
+		if (isFieldRelative) {
+			SwerveKinematics.fromFieldRelative(vx, vy,
+					m_gyroService.getPredictedHeading(kActuationLatency).getRadians(), m_chassisSpeeds);
+			vx = m_chassisSpeeds[0];
+			vy = m_chassisSpeeds[1];
+		}
+		// The states are held until the next loop
+		SwerveKinematics.discretize(vx, vy, speeds.omegaRadiansPerSecond, m_loopPeriod, m_chassisSpeeds);
+		m_swerveKinematics.toModuleStates(m_chassisSpeeds[0], m_chassisSpeeds[1], m_chassisSpeeds[2], m_targetSpeeds,
+				m_targetAngles);
+		SwerveKinematics.desaturate(m_targetSpeeds, kTeleopDriveMaxSpeed);
+		m_predictedModuleAngles[0] = Math.toRadians(m_frontLeft.getPredictedModuleAngle());
+		m_predictedModuleAngles[1] = Math.toRadians(m_frontRight.getPredictedModuleAngle());
+		m_predictedModuleAngles[2] = Math.toRadians(m_backLeft.getPredictedModuleAngle());
+		m_predictedModuleAngles[3] = Math.toRadians(m_backRight.getPredictedModuleAngle());
+		SwerveKinematics.optimize(m_targetSpeeds, m_targetAngles, m_predictedModuleAngles);
+		var states = new SwerveModuleState[m_targetSpeeds.length];
+		for (int i = 0; i < states.length; i++)
+			states[i] = new SwerveModuleState(m_targetSpeeds[i], new Rotation2d(m_targetAngles[i]));
 		return states;
 	}
 
@@ -185,8 +298,7 @@ public class DriveSubsystem extends SubsystemBase {
 	 * @param speeds The chassis speeds.
 	 */
 	private void setModuleStates(SwerveModuleState[] states) {
-		SmartDashboard.putNumber("Target number", states.length);
-		m_targetModuleStatePublisher.set(states);
+		m_targetModuleStates = states;
 		m_frontLeft.setModuleState(states[0]);
 		m_frontRight.setModuleState(states[1]);
 		m_backLeft.setModuleState(states[2]);
@@ -237,15 +349,134 @@ public class DriveSubsystem extends SubsystemBase {
 	 */
 	@Override
 	public void periodic() {
+		double[] rotationGains = m_pendingRotationGains.getAndSet(null);
+		if (rotationGains != null)
+			m_orientationController.setPID(rotationGains[0], rotationGains[1], rotationGains[2]);
 		SwerveModuleState[] states = { m_frontLeft.getModuleState(), m_frontRight.getModuleState(),
 				m_backLeft.getModuleState(), m_backRight.getModuleState() };
-		m_currentModuleStatePublisher.set(states);
+		m_currentModuleStates = states;
 		var speeds = m_kinematics.toChassisSpeeds(states);
-		m_currentChassisSpeedsPublisher.set(speeds);
+		m_currentChassisSpeeds = speeds;
 		if (RobotBase.isSimulation())// TODO: Use SysId to get feedforward model for rotation
-			m_gyroSim.set(
-					-Math.toDegrees(speeds.omegaRadiansPerSecond * TimedRobot.kDefaultPeriod) + m_gyro.getYaw());
-		m_posePublisher.set(m_odometry.update(getHeading(), getModulePositions()));
+			m_gyroService.updateSim(speeds.omegaRadiansPerSecond, TimedRobot.kDefaultPeriod);
+		double now = Timer.getFPGATimestamp();
+		m_loopPeriod = Math.min(now - m_lastPeriodicTime, kMaxLoopPeriod);
+		m_lastPeriodicTime = now;
+		var modulePositions = getModulePositions();
+		double wheelYawDelta = m_kinematics.toTwist2d(m_previousModulePositions, modulePositions).dtheta;
+		m_gyroService.update(wheelYawDelta);
+		var pose = m_odometry.update(getHeading(), rejectSlippingModules(modulePositions, wheelYawDelta));
+		m_previousModulePositions = modulePositions;
+		// Where the robot will be when the commands calculated this loop take effect
+		m_swerveKinematics.toChassisSpeeds(m_wheelSpeeds, m_moduleAngles, m_measuredChassisSpeeds);
+		m_predictedPose = pose.exp(new Twist2d(m_measuredChassisSpeeds[0] * kActuationLatency,
+				m_measuredChassisSpeeds[1] * kActuationLatency, m_measuredChassisSpeeds[2] * kActuationLatency));
+		m_driveStateStore.write(pose, getHeading().getRadians(), modulePositions, DriveStateStore.MatchPhase.current());
+	}
+
+	/**
+	 * Publishes the drive state to NetworkTables. Nothing here affects the
+	 * outputs, so it can be skipped on cycles that are running long.
+	 */
+	public void publishTelemetry() {
+		m_currentModuleStatePublisher.set(m_currentModuleStates);
+		m_currentChassisSpeedsPublisher.set(m_currentChassisSpeeds);
+		if (m_targetModuleStates != null) {
+			SmartDashboard.putNumber("Target number", m_targetModuleStates.length);
+			m_targetModuleStatePublisher.set(m_targetModuleStates);
+		}
+		if (m_targetHeading != null)
+			m_targetHeadingPublisher.set(m_targetHeading);
+		m_posePublisher.set(getPose());
+		m_predictedPosePublisher.set(m_predictedPose);
+		m_slippingModulesPublisher.set(m_slippingModules);
+		SmartDashboard.putBoolean("Collision", m_slipDetector.isColliding());
+		SmartDashboard.putBoolean("Gyro Fallback", !m_gyroService.isUsingGyro());
+		m_moduleAngleLatencies[0] = m_frontLeft.getModuleAngleLatency() * 1000;
+		m_moduleAngleLatencies[1] = m_frontRight.getModuleAngleLatency() * 1000;
+		m_moduleAngleLatencies[2] = m_backLeft.getModuleAngleLatency() * 1000;
+		m_moduleAngleLatencies[3] = m_backRight.getModuleAngleLatency() * 1000;
+		m_moduleAngleLatenciesPublisher.set(m_moduleAngleLatencies);
+		SmartDashboard.putNumber("Gyro Latency (ms)",
+				(Timer.getFPGATimestamp() - m_gyroService.getLatestSample().timestampSeconds()) * 1000);
+		SmartDashboard.putNumber("Drive Supply Current Limit", m_currentBudgetAllocator.getDriveLimit());
+	}
+
+	/**
+	 * Returns where the robot is expected to be when the commands calculated
+	 * this loop take effect, extrapolated from the odometry pose with the
+	 * measured wheel speeds.
+	 * 
+	 * @return The predicted pose
+	 */
+	public Pose2d getPredictedPose() {
+		return m_predictedPose;
+	}
+
+	/**
+	 * Updates the odometry module positions, replacing the distance traveled by
+	 * a slipping module with what the other modules say it should have been. If
+	 * too many modules are slipping for the rest to be trusted, every module's
+	 * distance comes from the gyro and accelerometer instead.
+	 * 
+	 * @param modulePositions The measured module positions
+	 * @param wheelYawDelta The change in yaw since the last update according to
+	 *        the wheels in radians
+	 * @return The module positions to use for odometry
+	 */
+	private SwerveModulePosition[] rejectSlippingModules(SwerveModulePosition[] modulePositions,
+			double wheelYawDelta) {
+		double dt = m_loopPeriod;
+		var gyroSample = m_gyroService.getLatestSample();
+		// The simulated navX doesn't report a yaw rate
+		double omega = m_gyroService.isUsingGyro() && RobotBase.isReal() ? gyroSample.yawRateRadiansPerSecond()
+				: wheelYawDelta / dt;
+		m_wheelSpeeds[0] = m_frontLeft.getDriveVelocity();
+		m_wheelSpeeds[1] = m_frontRight.getDriveVelocity();
+		m_wheelSpeeds[2] = m_backLeft.getDriveVelocity();
+		m_wheelSpeeds[3] = m_backRight.getDriveVelocity();
+		for (int i = 0; i < m_moduleAngles.length; i++)
+			m_moduleAngles[i] = modulePositions[i].angle.getRadians();
+		m_slipDetector.update(m_wheelSpeeds, m_moduleAngles, omega, gyroSample.accelX(), gyroSample.accelY(), dt);
+		boolean hasConsensus = m_slipDetector.hasConsensus();
+		for (int i = 0; i < m_odometryPositions.length; i++) {
+			m_slippingModules[i] = m_slipDetector.isSlipping(i);
+			double distance = modulePositions[i].distanceMeters - m_previousModulePositions[i].distanceMeters;
+			if (m_slippingModules[i] || !hasConsensus)
+				distance = m_slipDetector.getPredictedSpeed(i) * dt;
+			m_odometryPositions[i].distanceMeters += distance;
+			m_odometryPositions[i].angle = modulePositions[i].angle;
+		}
+		return m_odometryPositions;
+	}
+
+	/**
+	 * Recalculates the drive motor supply current limit based on the battery
+	 * voltage and the current being drawn. Meant to be run faster than the main
+	 * loop (see {@code kCurrentBudgetPeriod}).
+	 */
+	public void allocateCurrentBudget() {
+		double driveCurrent = m_frontLeft.getDriveSupplyCurrent() + m_frontRight.getDriveSupplyCurrent()
+				+ m_backLeft.getDriveSupplyCurrent() + m_backRight.getDriveSupplyCurrent();
+		double steerCurrent = m_frontLeft.getSteerSupplyCurrent() + m_frontRight.getSteerSupplyCurrent()
+				+ m_backLeft.getSteerSupplyCurrent() + m_backRight.getSteerSupplyCurrent();
+		m_totalSupplyCurrent = driveCurrent + steerCurrent;
+		if (m_currentBudgetAllocator.update(RobotController.getBatteryVoltage(), driveCurrent, steerCurrent)) {
+			double driveLimit = m_currentBudgetAllocator.getDriveLimit();
+			m_frontLeft.setDriveSupplyCurrentLimit(driveLimit);
+			m_frontRight.setDriveSupplyCurrentLimit(driveLimit);
+			m_backLeft.setDriveSupplyCurrentLimit(driveLimit);
+			m_backRight.setDriveSupplyCurrentLimit(driveLimit);
+		}
+	}
+
+	/**
+	 * Feeds the current drawn by the swerve motors into a battery model so the
+	 * simulated battery voltage sags like a real one.
+	 */
+	@Override
+	public void simulationPeriodic() {
+		RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(m_totalSupplyCurrent));
 	}
 
 	public Command toggleCoastMode() {
@@ -348,14 +579,13 @@ public class DriveSubsystem extends SubsystemBase {
 	public ChassisSpeeds chassisSpeeds(DoubleSupplier forwardSpeed, DoubleSupplier strafeSpeed,
 			DoubleSupplier forwardOrientation, DoubleSupplier strafeOrientation, DoubleSupplier rotation) {
 		var orientation = new Translation2d(forwardOrientation.getAsDouble(), strafeOrientation.getAsDouble());
-		double omegaRadiansPerSecond = MathUtil.applyDeadband(rotation.getAsDouble(), ControllerConstants.kDeadzone);
-		omegaRadiansPerSecond = Math.signum(omegaRadiansPerSecond) * Math.pow(omegaRadiansPerSecond, 2)
-				* kTeleopTurnMaxAngularSpeed;
+		double omegaRadiansPerSecond = InputShaping.shape(rotation.getAsDouble(), ControllerConstants.kDeadzone,
+				kTeleopTurnMaxAngularSpeed);
 		if (orientation.getNorm() > 0.05) {
 			var angle = orientation.getAngle();
 			omegaRadiansPerSecond += m_orientationController
 					.calculate(getHeading().getRadians(), angle.getRadians());
-			m_targetHeadingPublisher.set(angle);
+			m_targetHeading = angle;
 		}
 		return chassisSpeeds(forwardSpeed, strafeSpeed, omegaRadiansPerSecond);
 	}
@@ -383,7 +613,7 @@ public class DriveSubsystem extends SubsystemBase {
 			var angle = orientation.getAngle();
 			omegaRadiansPerSecond = m_orientationController
 					.calculate(getHeading().getRadians(), angle.getRadians());
-			m_targetHeadingPublisher.set(angle);
+			m_targetHeading = angle;
 		}
 		return chassisSpeeds(forwardSpeed, strafeSpeed, omegaRadiansPerSecond);
 	}
@@ -403,9 +633,8 @@ public class DriveSubsystem extends SubsystemBase {
 	 */
 	public static ChassisSpeeds chassisSpeeds(DoubleSupplier forwardSpeed, DoubleSupplier strafeSpeed,
 			DoubleSupplier rotation) {
-		double omegaRadiansPerSecond = MathUtil.applyDeadband(rotation.getAsDouble(), ControllerConstants.kDeadzone);
-		omegaRadiansPerSecond = Math.signum(omegaRadiansPerSecond) * Math.pow(omegaRadiansPerSecond, 2)
-				* kTeleopTurnMaxAngularSpeed;
+		double omegaRadiansPerSecond = InputShaping.shape(rotation.getAsDouble(), ControllerConstants.kDeadzone,
+				kTeleopTurnMaxAngularSpeed);
 		return chassisSpeeds(forwardSpeed, strafeSpeed, omegaRadiansPerSecond);
 	}
 
@@ -423,11 +652,10 @@ public class DriveSubsystem extends SubsystemBase {
 	 */
 	static ChassisSpeeds chassisSpeeds(DoubleSupplier forwardSpeed, DoubleSupplier strafeSpeed,
 			double omegaRadiansPerSecond) {
-		double vxMetersPerSecond = MathUtil.applyDeadband(forwardSpeed.getAsDouble(), ControllerConstants.kDeadzone);
-		vxMetersPerSecond = Math.signum(vxMetersPerSecond) * Math.pow(vxMetersPerSecond, 2) * kTeleopDriveMaxSpeed;
-
-		double vyMetersPerSecond = MathUtil.applyDeadband(strafeSpeed.getAsDouble(), ControllerConstants.kDeadzone);
-		vyMetersPerSecond = Math.signum(vyMetersPerSecond) * Math.pow(vyMetersPerSecond, 2) * kTeleopDriveMaxSpeed;
+		double vxMetersPerSecond = InputShaping.shape(forwardSpeed.getAsDouble(), ControllerConstants.kDeadzone,
+				kTeleopDriveMaxSpeed);
+		double vyMetersPerSecond = InputShaping.shape(strafeSpeed.getAsDouble(), ControllerConstants.kDeadzone,
+				kTeleopDriveMaxSpeed);
 
 		return chassisSpeeds(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond);
 	}
@@ -441,10 +669,9 @@ public class DriveSubsystem extends SubsystemBase {
 	 */
 	public static ChassisSpeeds chassisSpeeds(double vxMetersPerSecond, double vyMetersPerSecond,
 			double omegaRadiansPerSecond) {
-		vxMetersPerSecond = MathUtil.clamp(vxMetersPerSecond, -kTeleopDriveMaxSpeed, kTeleopDriveMaxSpeed);
-		vyMetersPerSecond = MathUtil.clamp(vyMetersPerSecond, -kTeleopDriveMaxSpeed, kTeleopDriveMaxSpeed);
-		omegaRadiansPerSecond = MathUtil
-				.clamp(omegaRadiansPerSecond, -kTeleopTurnMaxAngularSpeed, kTeleopTurnMaxAngularSpeed);
+		vxMetersPerSecond = InputShaping.clamp(vxMetersPerSecond, kTeleopDriveMaxSpeed);
+		vyMetersPerSecond = InputShaping.clamp(vyMetersPerSecond, kTeleopDriveMaxSpeed);
+		omegaRadiansPerSecond = InputShaping.clamp(omegaRadiansPerSecond, kTeleopTurnMaxAngularSpeed);
 		return new ChassisSpeeds(vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond);
 	}
 
@@ -454,11 +681,11 @@ public class DriveSubsystem extends SubsystemBase {
 	 * @return A command to reset the gyro heading.
 	 */
 	public Command resetHeading() {
-		return runOnce(m_gyro::zeroYaw).withName("ResetHeadingCommand");
+		return runOnce(m_gyroService::reset).withName("ResetHeadingCommand");
 	}
 
 	public Command resetOdometry(Pose2d pose) {
-		return runOnce(() -> m_odometry.resetPosition(getHeading(), getModulePositions(), pose))
+		return runOnce(() -> m_odometry.resetPosition(getHeading(), m_odometryPositions, pose))
 				.withName("ResetOdometryCommand");
 	}
 
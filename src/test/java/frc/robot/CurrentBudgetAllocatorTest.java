@@ -0,0 +1,63 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+
+class CurrentBudgetAllocatorTest {
+	// Every drive motor tries to draw this much, like during a hard acceleration
+	private static final double kDriveDemand = 80;
+	private static final double kSteerDraw = 2;
+	private static final int kUpdates = 500;
+
+	/**
+	 * Runs the allocator against a battery model with the drive motors drawing
+	 * as much as their limit allows.
+	 *
+	 * @param openCircuitVoltage The battery's open-circuit voltage in volts
+	 * @return The allocator after it has settled
+	 */
+	private static CurrentBudgetAllocator settle(double openCircuitVoltage) {
+		var allocator = new CurrentBudgetAllocator();
+		for (int i = 0; i < kUpdates; i++) {
+			double driveCurrent = 4 * Math.min(allocator.getDriveLimit(), kDriveDemand);
+			double steerCurrent = 4 * kSteerDraw;
+			double voltage = BatterySim.calculateLoadedBatteryVoltage(openCircuitVoltage, kBatteryResistance,
+					driveCurrent, steerCurrent);
+			allocator.update(voltage, driveCurrent, steerCurrent);
+		}
+		return allocator;
+	}
+
+	@Test
+	void healthyBatteryAllowsAtLeastTheFixedLimit() {
+		var allocator = settle(12.5);
+		assertTrue(allocator.getDriveLimit() >= 45, "Drive limit " + allocator.getDriveLimit());
+		double driveCurrent = 4 * Math.min(allocator.getDriveLimit(), kDriveDemand);
+		double voltage = BatterySim.calculateLoadedBatteryVoltage(12.5, kBatteryResistance, driveCurrent,
+				4 * kSteerDraw);
+		assertTrue(voltage >= kBrownoutGuardVoltage, "Loaded voltage " + voltage);
+	}
+
+	@Test
+	void saggingBatteryLowersTheDriveLimit() {
+		double healthyLimit = settle(12.5).getDriveLimit();
+		var allocator = settle(11.5);
+		assertTrue(allocator.getDriveLimit() < healthyLimit);
+		assertTrue(allocator.getDriveLimit() < 45, "Drive limit " + allocator.getDriveLimit());
+		double driveCurrent = 4 * Math.min(allocator.getDriveLimit(), kDriveDemand);
+		double voltage = BatterySim.calculateLoadedBatteryVoltage(11.5, kBatteryResistance, driveCurrent,
+				4 * kSteerDraw);
+		assertTrue(voltage >= kBrownoutGuardVoltage, "Loaded voltage " + voltage);
+	}
+
+	@Test
+	void firstUpdateStartsFromTheMeasurement() {
+		var allocator = new CurrentBudgetAllocator();
+		allocator.update(12.5, 0, 0);
+		assertTrue(allocator.getDriveLimit() >= 45, "Drive limit " + allocator.getDriveLimit());
+	}
+}